@@ -92,6 +92,12 @@ resource "google_cloud_run_service" "backend" {
           name = "APP_CORS_ALLOWED_ORIGINS"
           value = var.app_cors_allowed_origins
         }
+
+        # Run requests on virtual threads (JDK 21); DB checkouts stay capped at the pool size
+        env {
+          name = "APP_VIRTUAL_THREADS"
+          value = "true"
+        }
       }
     }
   }
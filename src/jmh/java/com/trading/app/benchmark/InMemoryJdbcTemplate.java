@@ -0,0 +1,53 @@
+package com.trading.app.benchmark;
+
+import com.trading.app.model.TradeState;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JdbcTemplate stand-in that streams trade_state rows from memory, so the export path can be
+ * measured without a database. Only the streaming query overload used by the export is supported.
+ */
+public class InMemoryJdbcTemplate extends JdbcTemplate {
+
+    private final List<TradeState> rows;
+    private TradeState current;
+
+    public InMemoryJdbcTemplate(List<TradeState> rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> column(method.getName(), (String) args[0]));
+        try {
+            for (TradeState row : rows) {
+                current = row;
+                rch.processRow(rs);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object column(String getter, String column) {
+        return switch (column) {
+            case "trade_ref" -> current.getTradeRef();
+            case "status" -> current.getStatus();
+            case "subject" -> current.getSubject();
+            case "source_system" -> current.getSourceSystem();
+            case "counterparty" -> current.getCounterparty() != null ? current.getCounterparty() : "UNKNOWN";
+            case "notional" -> current.getNotional() != null ? current.getNotional() : 0.0;
+            case "latest_event_time" -> Timestamp.valueOf(current.getLatestEventTime());
+            default -> throw new UnsupportedOperationException(getter + "(" + column + ")");
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.trading.app.benchmark;
+
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Deterministic trade/event generator for the JMH benchmarks.
+ *
+ * Every trade is booked once; a share of trades is amended (1-3 times), and a share of the
+ * survivors ends in a cancel or verify. Events come back newest first, like the history query.
+ */
+public final class SyntheticTrades {
+
+    private static final String[] SUBJECTS = {"VANILLA_SWAPTION", "IRS", "FX_FORWARD", "EQUITY_OPTION", "CDS", "BOND"};
+    private static final String[] SOURCES = {"INTERNAL_UI", "MUREX", "CALYPSO", "SUMMIT"};
+
+    private final List<TradeEvent> events = new ArrayList<>();
+    private final List<TradeState> states = new ArrayList<>();
+
+    private SyntheticTrades() {}
+
+    public static SyntheticTrades generate(int trades, double amendRatio, double cancelRatio, long seed) {
+        SyntheticTrades data = new SyntheticTrades();
+        Random random = new Random(seed);
+        LocalDateTime clock = LocalDateTime.of(2024, 1, 2, 8, 0);
+
+        for (int i = 0; i < trades; i++) {
+            String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+            String source = SOURCES[random.nextInt(SOURCES.length)];
+            String tradeRef = subject + ":" + source + ":" + String.format("%08x", random.nextInt());
+            String counterparty = "CPTY_" + String.format("%04d", random.nextInt(5000));
+            double notional = 1_000L * (1 + random.nextInt(50_000));
+
+            clock = clock.plusNanos(1_000_000L * (1 + random.nextInt(50)));
+            TradeEvent latest = data.add(tradeRef + ":BOOK", "TRADE_BOOKED", subject, source, clock,
+                    tradeRef, counterparty, notional);
+            int count = 1;
+
+            if (random.nextDouble() < amendRatio) {
+                int amends = 1 + random.nextInt(3);
+                for (int a = 0; a < amends; a++) {
+                    notional += 1_000L * random.nextInt(100);
+                    clock = clock.plusNanos(1_000_000L);
+                    latest = data.add(tradeRef + ":AMEND:" + String.format("%04x", random.nextInt(0x10000)),
+                            "TRADE_AMENDED", subject, source, clock, tradeRef, counterparty, notional);
+                    count++;
+                }
+            }
+            if (random.nextDouble() < cancelRatio) {
+                clock = clock.plusNanos(1_000_000L);
+                latest = data.add(tradeRef + ":CANCEL:" + String.format("%04x", random.nextInt(0x10000)),
+                        "TRADE_CANCELLED", subject, source, clock, tradeRef, counterparty, notional);
+                count++;
+            } else if (random.nextBoolean()) {
+                clock = clock.plusNanos(1_000_000L);
+                latest = data.add(tradeRef + ":VERIFY:" + String.format("%04x", random.nextInt(0x10000)),
+                        "TRADE_VERIFIED", subject, source, clock, tradeRef, counterparty, notional);
+                count++;
+            }
+
+            data.states.add(stateOf(latest, count));
+        }
+
+        data.events.sort(Comparator.comparing(TradeEvent::getEventTime).reversed());
+        data.states.sort(Comparator.comparing(TradeState::getLatestEventTime).reversed());
+        return data;
+    }
+
+    /** All events, newest first. */
+    public List<TradeEvent> events() {
+        return events;
+    }
+
+    /** One projection row per trade, newest first. */
+    public List<TradeState> states() {
+        return states;
+    }
+
+    private TradeEvent add(String eventId, String type, String subject, String source, LocalDateTime time,
+                           String tradeRef, String counterparty, double notional) {
+        String status = TradeState.statusFor(type);
+        String payload = "{\"trade_ref\":\"" + tradeRef + "\",\"counterparty\":\"" + counterparty
+                + "\",\"notional_amount\":" + (long) notional + ",\"currency\":\"USD\",\"status\":\"" + status + "\"}";
+        TradeEvent event = new TradeEvent(eventId, type, subject, source, LocalDate.from(time), time, payload,
+                tradeRef, counterparty, notional, status);
+        events.add(event);
+        return event;
+    }
+
+    private static TradeState stateOf(TradeEvent latest, int eventCount) {
+        TradeState state = new TradeState();
+        state.setTradeRef(latest.getTradeRef());
+        state.setStatus(latest.getStatus());
+        state.setSubject(latest.getSubject());
+        state.setSourceSystem(latest.getSourceSystem());
+        state.setCounterparty(latest.getCounterparty());
+        state.setNotional(latest.getNotionalAmount());
+        state.setTradingDate(latest.getTradingDate());
+        state.setLatestEventId(latest.getEventId());
+        state.setLatestEventType(latest.getEventType());
+        state.setLatestEventTime(latest.getEventTime());
+        state.setEventCount(eventCount);
+        return state;
+    }
+}
@@ -0,0 +1,74 @@
+package com.trading.app.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blotter search over 1M trades: a page of trigram index hits against the naive contains() scan
+ * it replaced, for a selective, a broad and a missing query.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="TradeSearchIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TradeSearchIndexBenchmark {
+
+    private static final String[] SUBJECTS = {"VANILLA_SWAPTION", "IRS", "FX_FORWARD", "EQUITY_OPTION", "CDS", "BOND"};
+    private static final String[] SOURCES = {"INTERNAL_UI", "MUREX", "CALYPSO", "SUMMIT"};
+    private static final String[] STATUSES = {"LIVE", "LIVE", "LIVE", "VERIFIED", "CANCELLED"};
+
+    @Param({"1000000"})
+    int trades;
+
+    @Param({"cpty_0042", "swaption", "zzzz"})
+    String query;
+
+    private String[] refs;
+    private String[] counterparties;
+    private String[] subjects;
+    private String[] statuses;
+    private TradeSearchIndex index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        refs = new String[trades];
+        counterparties = new String[trades];
+        subjects = new String[trades];
+        statuses = new String[trades];
+        index = new TradeSearchIndex();
+        for (int i = 0; i < trades; i++) {
+            subjects[i] = SUBJECTS[random.nextInt(SUBJECTS.length)];
+            refs[i] = subjects[i] + ":" + SOURCES[random.nextInt(SOURCES.length)] + ":" + String.format("%08x", random.nextInt());
+            counterparties[i] = i % 97 == 0 ? "GOLDMAN_SACHS" : "CPTY_" + String.format("%04d", random.nextInt(5000));
+            statuses[i] = STATUSES[random.nextInt(STATUSES.length)];
+            index.upsert(refs[i], counterparties[i], subjects[i], statuses[i], i);
+        }
+    }
+
+    @Benchmark
+    public TradeSearchIndex.Hits indexSearch() {
+        return index.search(query, 0, 100);
+    }
+
+    // The old getTradeDashboard filter, for comparison
+    @Benchmark
+    public int containsScan() {
+        String q = query.toLowerCase(Locale.ROOT);
+        int matches = 0;
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i].toLowerCase().contains(q) || counterparties[i].toLowerCase().contains(q)
+                    || subjects[i].toLowerCase().contains(q) || statuses[i].toLowerCase().contains(q)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,50 @@
+package com.trading.app.service;
+
+import com.trading.app.benchmark.InMemoryJdbcTemplate;
+import com.trading.app.benchmark.SyntheticTrades;
+import com.trading.app.dto.ExportFilter;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV export over an in-memory trade_state stand-in (no database): streaming to a sink
+ * versus materialising the whole file as a String.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="ExportBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"1000", "100000"})
+    int trades;
+
+    private TradeExportServiceImpl exportService;
+
+    @Setup
+    public void setup() {
+        SyntheticTrades data = SyntheticTrades.generate(trades, 0.3, 0.1, 42);
+        exportService = new TradeExportServiceImpl(new InMemoryJdbcTemplate(data.states()), new SimpleMeterRegistry(),
+                new ShardRouter(null, new SimpleMeterRegistry()));
+        exportService.registerMeters();
+    }
+
+    @Benchmark
+    public void writeCsvExport() throws IOException {
+        exportService.writeCsvExport(new ExportFilter(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public String generateCsvExport() {
+        return exportService.generateCsvExport();
+    }
+}
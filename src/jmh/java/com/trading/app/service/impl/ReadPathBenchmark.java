@@ -0,0 +1,78 @@
+package com.trading.app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trading.app.benchmark.SyntheticTrades;
+import com.trading.app.dto.CursorPage;
+import com.trading.app.dto.PageResult;
+import com.trading.app.dto.TradeSummary;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Blotter read path: mapping projection rows to summaries and serialising a page of them,
+ * next to serialising one trade's history page. Summary page cost tracks the page size only.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="ReadPathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    @Param({"100", "1000"})
+    int pageSize;
+
+    @Param({"0.3"})
+    double amendRatio;
+
+    @Param({"0.1"})
+    double cancelRatio;
+
+    private List<TradeState> states;
+    private CursorPage<TradeEvent> historyPage;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setup() {
+        SyntheticTrades data = SyntheticTrades.generate(pageSize, amendRatio, cancelRatio, 42);
+        states = data.states();
+
+        // The longest audit trail in the data set, as GET /api/trades/{tradeRef}/history returns it
+        String deepest = states.stream().max((a, b) -> Integer.compare(a.getEventCount(), b.getEventCount()))
+                .map(TradeState::getTradeRef).orElseThrow();
+        List<TradeEvent> trail = data.events().stream()
+                .filter(e -> e.getTradeRef().equals(deepest))
+                .collect(Collectors.toList());
+        historyPage = new CursorPage<>(trail, null, 50);
+
+        // Same settings Spring Boot applies to the MVC converter
+        mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public List<TradeSummary> buildSummaries() {
+        return states.stream().map(TradeReadServiceImpl::toSummary).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryPage() throws Exception {
+        List<TradeSummary> summaries = states.stream().map(TradeReadServiceImpl::toSummary).collect(Collectors.toList());
+        return mapper.writeValueAsBytes(new PageResult<>(summaries, 0, 1, summaries.size()));
+    }
+
+    @Benchmark
+    public byte[] serializeHistoryPage() throws Exception {
+        return mapper.writeValueAsBytes(historyPage);
+    }
+}
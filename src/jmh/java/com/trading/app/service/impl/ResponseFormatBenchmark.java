@@ -0,0 +1,82 @@
+package com.trading.app.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trading.app.benchmark.SyntheticTrades;
+import com.trading.app.dto.PageResult;
+import com.trading.app.dto.TradeSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One blotter page in each wire format GET /api/trades negotiates, with and without gzip:
+ * serialisation cost per page here, bytes per page printed once per trial.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="ResponseFormatBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"100", "1000"})
+    int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private PageResult<TradeSummary> page;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setup() throws IOException {
+        List<TradeSummary> summaries = SyntheticTrades.generate(pageSize, 0.3, 0.1, 42).states().stream()
+                .map(TradeReadServiceImpl::toSummary)
+                .collect(Collectors.toList());
+        page = new PageResult<>(summaries, 0, 1, summaries.size());
+
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        // Same settings Spring Boot applies to the MVC converters
+        mapper = new ObjectMapper(factory).registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        serializePageGzip(gzipped);
+        System.out.printf("%n%s page of %d: %,d bytes, %,d gzipped%n",
+                format, pageSize, mapper.writeValueAsBytes(page).length, gzipped.size());
+    }
+
+    @Benchmark
+    public void serializePage() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void serializePageGzip() throws IOException {
+        serializePageGzip(OutputStream.nullOutputStream());
+    }
+
+    private void serializePageGzip(OutputStream sink) throws IOException {
+        try (GZIPOutputStream out = new GZIPOutputStream(sink, 8 * 1024)) {
+            mapper.writeValue(out, page);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.trading.app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.app.benchmark.SyntheticTrades;
+import com.trading.app.dto.TradeSubmission;
+import com.trading.app.id.IdGenerator;
+import com.trading.app.id.LegacyIdGenerator;
+import com.trading.app.id.UlidIdGenerator;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.repository.TradeRepository;
+import com.trading.app.service.IdempotencyService;
+import com.trading.app.service.TradeLookup;
+import com.trading.app.service.TradeProjectionService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Write path up to (not including) the database: id generation, JSON payload, event construction.
+ * Cancel/verify carry fields forward from the typed columns, which replaced the old
+ * copyDataWithStatus JSON round-trip; prepareCancel covers that path.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="WritePathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritePathBenchmark {
+
+    @Param({"legacy", "ulid"})
+    public String idScheme;
+
+    private IdGenerator idGenerator;
+    private TradeWriteServiceImpl writeService;
+    private List<TradeEvent> events;
+    private TradeSubmission book;
+    private TradeSubmission amend;
+    private int next;
+
+    @Setup
+    public void setup() {
+        events = SyntheticTrades.generate(10_000, 0.3, 0.1, 42).events();
+        Map<String, TradeEvent> byId = events.stream()
+                .collect(Collectors.toMap(TradeEvent::getEventId, Function.identity()));
+
+        // Only the lookup used by cancel/verify answers, straight from the map; the collaborators that would
+        // persist are stub-only mocks, never called here
+        TradeLookup lookup = byId::get;
+        idGenerator = "ulid".equals(idScheme) ? new UlidIdGenerator() : new LegacyIdGenerator();
+        writeService = new TradeWriteServiceImpl(stub(TradeRepository.class), lookup, stub(TradeProjectionService.class),
+                new ObjectMapper(), stub(ApplicationEventPublisher.class), stub(IdempotencyService.class),
+                new SimpleMeterRegistry(), idGenerator, new ShardRouter(null, new SimpleMeterRegistry()));
+        writeService.registerMeters();
+
+        book = new TradeSubmission();
+        book.setMode("BOOK");
+        book.setSubject("VANILLA_SWAPTION");
+        book.setSource("INTERNAL_UI");
+        book.setCounterparty("GOLDMAN_SACHS");
+        book.setNotional(5_000_000L);
+
+        amend = new TradeSubmission();
+        amend.setMode("AMEND");
+        amend.setOriginalId(events.get(0).getEventId());
+        amend.setSubject("VANILLA_SWAPTION");
+        amend.setSource("INTERNAL_UI");
+        amend.setCounterparty("GOLDMAN_SACHS");
+        amend.setNotional(7_500_000L);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    private TradeEvent nextEvent() {
+        next = (next + 1) % events.size();
+        return events.get(next);
+    }
+
+    @Benchmark
+    public String newEventId() {
+        return idGenerator.newEventId(nextEvent().getTradeRef(), "AMEND");
+    }
+
+    @Benchmark
+    public String createPayload() {
+        TradeEvent e = nextEvent();
+        return writeService.createPayload(e.getTradeRef(), e.getCounterparty(), e.getNotionalAmount(), e.getStatus());
+    }
+
+    @Benchmark
+    public TradeEvent prepareBook() {
+        return writeService.prepareSubmission(book, null);
+    }
+
+    @Benchmark
+    public TradeEvent prepareAmend() {
+        return writeService.prepareSubmission(amend, null);
+    }
+
+    @Benchmark
+    public TradeEvent prepareCancel() {
+        return writeService.prepareCancel(nextEvent().getEventId());
+    }
+}
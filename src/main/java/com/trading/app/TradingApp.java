@@ -2,8 +2,10 @@ package com.trading.app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TradingApp {
     public static void main(String[] args) {
         SpringApplication.run(TradingApp.class, args);
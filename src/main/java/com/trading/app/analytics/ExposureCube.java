@@ -0,0 +1,185 @@
+package com.trading.app.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trade count and notional per (counterparty, subject, status, trading date) cell.
+ *
+ * Dimension values are interned to small ints and packed with the epoch day into one long key, so the
+ * update path never boxes. Each cell accumulates into a LongAdder / DoubleAdder, letting concurrent
+ * commits add to the same cell without contending. Cells sit in an open-addressing table that readers
+ * and updaters probe without locking; only inserting a new cell (and growing the table) is serialised.
+ *
+ * Size depends on the number of distinct cells, not on the number of trades. Keys hold up to about a
+ * million counterparties and half a million subjects, with trading dates from 1790 to 2149.
+ */
+public class ExposureCube {
+
+    private static final int COUNTERPARTY_BITS = 20;
+    private static final int SUBJECT_BITS = 19;
+    private static final int STATUS_BITS = 8;
+    private static final int DAY_BITS = 17;
+    private static final long DAY_OFFSET = 1L << (DAY_BITS - 1);
+
+    @FunctionalInterface
+    public interface CellVisitor {
+        void visit(String counterparty, String subject, String status, LocalDate tradingDate, long trades, double notional);
+    }
+
+    private static final class Cell {
+        final long key;
+        final LongAdder trades = new LongAdder();
+        final DoubleAdder notional = new DoubleAdder();
+
+        Cell(long key) {
+            this.key = key;
+        }
+    }
+
+    private final Dictionary counterparties = new Dictionary(COUNTERPARTY_BITS);
+    private final Dictionary subjects = new Dictionary(SUBJECT_BITS);
+    private final Dictionary statuses = new Dictionary(STATUS_BITS);
+
+    private volatile AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<>(1024);
+    private int cellCount;
+
+    public void add(String counterparty, String subject, String status, LocalDate tradingDate, long trades, double notional) {
+        add(key(counterparty, subject, status, tradingDate), trades, notional);
+    }
+
+    /**
+     * The cell key for these values, interning any new ones. Throws IllegalStateException once a dimension
+     * has no ids left and IllegalArgumentException for a date out of range, before any cell is touched, so
+     * a caller moving trades between cells can resolve both keys first and never apply half a move.
+     */
+    public long key(String counterparty, String subject, String status, LocalDate tradingDate) {
+        return pack(counterparties.id(counterparty), subjects.id(subject), statuses.id(status), tradingDate);
+    }
+
+    public void add(long key, long trades, double notional) {
+        Cell cell = cellFor(key);
+        cell.trades.add(trades);
+        cell.notional.add(notional);
+    }
+
+    /** Visits every cell that currently holds trades. Totals are read per cell, not as one atomic snapshot. */
+    public void forEach(CellVisitor visitor) {
+        AtomicReferenceArray<Cell> table = cells;
+        for (int i = 0; i < table.length(); i++) {
+            Cell cell = table.get(i);
+            if (cell == null) continue;
+            long trades = cell.trades.sum();
+            if (trades == 0) continue;
+
+            long key = cell.key;
+            long day = key & ((1L << DAY_BITS) - 1);
+            visitor.visit(
+                    counterparties.value((int) (key >>> (SUBJECT_BITS + STATUS_BITS + DAY_BITS))),
+                    subjects.value((int) (key >>> (STATUS_BITS + DAY_BITS)) & ((1 << SUBJECT_BITS) - 1)),
+                    statuses.value((int) (key >>> DAY_BITS) & ((1 << STATUS_BITS) - 1)),
+                    day == 0 ? null : LocalDate.ofEpochDay(day - DAY_OFFSET),
+                    trades,
+                    cell.notional.sum());
+        }
+    }
+
+    public synchronized int cellCount() {
+        return cellCount;
+    }
+
+    // --- Cells ---
+
+    private Cell cellFor(long key) {
+        Cell cell = find(cells, key);
+        return cell != null ? cell : insert(key);
+    }
+
+    private synchronized Cell insert(long key) {
+        Cell cell = find(cells, key);
+        if (cell != null) return cell;
+
+        if ((cellCount + 1) * 2 > cells.length()) {
+            AtomicReferenceArray<Cell> grown = new AtomicReferenceArray<>(cells.length() * 2);
+            for (int i = 0; i < cells.length(); i++) {
+                Cell existing = cells.get(i);
+                if (existing != null) place(grown, existing);
+            }
+            cells = grown;
+        }
+        cell = new Cell(key);
+        place(cells, cell);
+        cellCount++;
+        return cell;
+    }
+
+    private static Cell find(AtomicReferenceArray<Cell> table, long key) {
+        int mask = table.length() - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            Cell cell = table.get(slot);
+            if (cell == null || cell.key == key) return cell;
+        }
+    }
+
+    private static void place(AtomicReferenceArray<Cell> table, Cell cell) {
+        int mask = table.length() - 1;
+        int slot = slot(cell.key, mask);
+        while (table.get(slot) != null) slot = (slot + 1) & mask;
+        table.set(slot, cell);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static long pack(int counterparty, int subject, int status, LocalDate tradingDate) {
+        long day = tradingDate == null ? 0 : tradingDate.toEpochDay() + DAY_OFFSET;
+        if (day < 0 || day >= 1L << DAY_BITS) throw new IllegalArgumentException("Trading date out of range: " + tradingDate);
+        return (long) counterparty << (SUBJECT_BITS + STATUS_BITS + DAY_BITS)
+                | (long) subject << (STATUS_BITS + DAY_BITS)
+                | (long) status << DAY_BITS
+                | day;
+    }
+
+    // --- Dimension values ---
+
+    // String <-> id, id 0 reserved for null; ids are handed out once and never reused
+    private static final class Dictionary {
+        private final int capacity;
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        private int next = 1;
+
+        Dictionary(int bits) {
+            this.capacity = 1 << bits;
+        }
+
+        int id(String value) {
+            if (value == null) return 0;
+            Integer id = ids.get(value);
+            return id != null ? id : intern(value);
+        }
+
+        String value(int id) {
+            return id == 0 ? null : values[id];
+        }
+
+        private synchronized int intern(String value) {
+            Integer existing = ids.get(value);
+            if (existing != null) return existing;
+            if (next == capacity) throw new IllegalStateException("More than " + (capacity - 1) + " distinct values");
+
+            if (next == values.length) values = Arrays.copyOf(values, values.length * 2);
+            int id = next++;
+            values[id] = value;
+            // Written after the value, so anyone who can see the id can resolve it
+            ids.put(value, id);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.trading.app.cache;
+
+import com.trading.app.event.TradeEventsCommitted;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the event log as seen by this instance, bumped after every commit.
+ * The boot id keeps ETags from colliding across restarts.
+ */
+@Component
+public class TradeLogVersion {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    // Weak: the same version is served as JSON, CBOR or Smile, gzipped or not (Tomcat won't compress strong ETags)
+    public String etag() {
+        return "W/\"" + bootId + "-" + version.get() + "\"";
+    }
+
+    // After the search index update, before the cache eviction
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        version.incrementAndGet();
+    }
+}
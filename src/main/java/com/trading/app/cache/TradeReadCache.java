@@ -0,0 +1,73 @@
+package com.trading.app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trading.app.config.ReadRouting;
+import com.trading.app.event.TradeEventsCommitted;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of read-path result pages (blotter pages and per-trade history pages).
+ * Keyed by the event log version, so any commit makes older pages unreachable.
+ *
+ * Hit/miss/eviction statistics are published as cache.* meters (cache=trade.pages).
+ */
+@Component
+public class TradeReadCache {
+
+    private final Cache<PageKey, Object> pages;
+    private final TradeLogVersion logVersion;
+
+    // scope = search text for blotter pages, trade ref for history pages
+    public record PageKey(long version, String view, String scope, String position, int size) {}
+
+    public TradeReadCache(TradeLogVersion logVersion,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.pages.max-size:500}") long pageMaxSize,
+                          @Value("${app.cache.pages.ttl:30s}") Duration pageTtl) {
+        this.logVersion = logVersion;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(pageMaxSize)
+                .expireAfterWrite(pageTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "trade.pages");
+    }
+
+    // --- Pages ---
+
+    // Version is read before the page is built, so a cached page is never older than its key. A page read
+    // from a replica that had not applied every known commit is served but not cached, for the same reason.
+    // The loader runs outside the map: Caffeine's compute holds a monitor, which would pin a virtual
+    // thread for the whole DB round-trip (and stall the carrier while it waits for a connection).
+    @SuppressWarnings("unchecked")
+    public <T> T getPage(String view, String scope, String position, int size, Supplier<T> loader) {
+        PageKey key = new PageKey(logVersion.current(), view, scope, position, size);
+        T page = (T) pages.getIfPresent(key);
+        if (page == null) {
+            ReadRouting.resetBehind();
+            page = loader.get();
+            if (!ReadRouting.isBehind()) pages.put(key, page);
+        }
+        return page;
+    }
+
+    // --- Invalidation ---
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        // Pages for older versions are unreachable now; drop them instead of waiting for the TTL
+        pages.asMap().keySet().removeIf(key -> key.version() < logVersion.current());
+    }
+}
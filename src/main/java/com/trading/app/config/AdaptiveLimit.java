@@ -0,0 +1,75 @@
+package com.trading.app.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows latency (after Netflix's Gradient2 limit).
+ *
+ * Each completed request compares its round trip with the long-run average: while they match, the limit
+ * grows by about its square root (the queue it is allowed to build); once requests take longer than
+ * tolerance x the average, something downstream is queueing and the limit shrinks in proportion, down to
+ * half per sample. Samples taken while fewer than half the permits are in use say nothing about the
+ * limit and leave it alone.
+ */
+final class AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longAlpha;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double longRtt; // Exponential average over roughly longWindow samples; guarded by this
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, int longWindow) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longAlpha = 2.0 / (longWindow + 1);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /** Takes a permit unless the limit is reached. */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) return false;
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /** Returns a permit, with the round trip of the request that held it. */
+    void release(long rttNanos) {
+        int inflightAtEnd = inflight.getAndDecrement();
+        if (rttNanos > 0) sample(rttNanos, inflightAtEnd);
+    }
+
+    private synchronized void sample(long rtt, int inflightAtEnd) {
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += longAlpha * (rtt - longRtt);
+        }
+        // After a slow spell the average lags far behind; pull it down so recovered latency reads as normal again
+        if (longRtt > 2.0 * rtt) longRtt *= 0.95;
+
+        double current = limit;
+        if (inflightAtEnd < current / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = (1 - smoothing) * current + smoothing * target;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+}
@@ -4,15 +4,20 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.Set;
 
 @Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100) // Before the other API filters (concurrency limits are per valid token)
 public class ApiKeyFilter implements Filter {
 
+    // Comma-separated: one token per upstream client
     @Value("${app.service.token}")
-    private String serviceToken;
+    private Set<String> serviceTokens;
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -36,7 +41,7 @@ public class ApiKeyFilter implements Filter {
         // 3. CHECK TOKEN
         String clientToken = req.getHeader("X-Service-Token");
 
-        if (serviceToken != null && !serviceToken.equals(clientToken)) {
+        if (!serviceTokens.contains(clientToken)) {
             // Reject the request if token doesn't match
             res.sendError(HttpServletResponse.SC_FORBIDDEN, "Access Denied: Invalid Service Token");
             return;
@@ -0,0 +1,165 @@
+package com.trading.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-client load shedding: each X-Service-Token gets its own adaptive concurrency limit (AdaptiveLimit)
+ * for reads, writes and exports. A request over its limit is answered 429 with Retry-After straight away
+ * instead of waiting for a database connection, so one client flooding writes slows down only itself.
+ *
+ * Runs after ApiKeyFilter, so only known tokens get limits. The live feed and change feed hold requests
+ * open by design and are capped by their own subscriber/waiter limits instead.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.limits.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements Filter {
+
+    enum Route { READ, WRITE, EXPORT }
+
+    private record Key(String client, Route route) {}
+
+    @Value("${app.limits.read.initial:20}")
+    private int readInitial;
+
+    @Value("${app.limits.read.max:100}")
+    private int readMax;
+
+    @Value("${app.limits.write.initial:8}")
+    private int writeInitial;
+
+    @Value("${app.limits.write.max:8}")
+    private int writeMax;
+
+    @Value("${app.limits.export.initial:2}")
+    private int exportInitial;
+
+    @Value("${app.limits.export.max:2}")
+    private int exportMax;
+
+    @Value("${app.limits.rtt-tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${app.limits.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.limits.long-window:600}")
+    private int longWindow;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+    private final Map<Route, Counter> rejected = new EnumMap<>(Route.class);
+
+    @PostConstruct
+    void registerMeters() {
+        for (Route route : Route.values()) {
+            String tag = route.name().toLowerCase();
+            rejected.put(route, Counter.builder("app.limits.rejected")
+                    .description("Requests shed with 429 because their client was at its concurrency limit")
+                    .tag("route", tag)
+                    .register(meterRegistry));
+            Gauge.builder("app.limits.limit", this, f -> f.lowestLimit(route))
+                    .description("Lowest current concurrency limit among clients")
+                    .tag("route", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        Route route = routeOf(req);
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String client = req.getHeader("X-Service-Token");
+        AdaptiveLimit limit = limits.computeIfAbsent(new Key(client == null ? "" : client, route), k -> newLimit(route));
+        if (!limit.tryAcquire()) {
+            rejected.get(route).increment();
+            HttpServletResponse res = (HttpServletResponse) response;
+            res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            res.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (req.isAsyncStarted()) {
+                // Streamed exports finish on another thread: the permit is held until the last byte
+                // (the container calls onComplete after a timeout or error too)
+                req.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limit.release(System.nanoTime() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                async = true;
+            }
+        } finally {
+            if (!async) limit.release(System.nanoTime() - start);
+        }
+    }
+
+    private static Route routeOf(HttpServletRequest req) {
+        String path = req.getRequestURI();
+        String method = req.getMethod();
+        if (!path.startsWith("/api/") || "OPTIONS".equalsIgnoreCase(method)) return null;
+        if (path.equals("/api/trades/stream") || path.startsWith("/api/events")) return null;
+        if (path.equals("/api/trades/export")) return Route.EXPORT;
+        return "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method) ? Route.READ : Route.WRITE;
+    }
+
+    private AdaptiveLimit newLimit(Route route) {
+        return switch (route) {
+            case READ -> new AdaptiveLimit(readInitial, 1, readMax, tolerance, smoothing, longWindow);
+            case WRITE -> new AdaptiveLimit(writeInitial, 1, writeMax, tolerance, smoothing, longWindow);
+            case EXPORT -> new AdaptiveLimit(exportInitial, 1, exportMax, tolerance, smoothing, longWindow);
+        };
+    }
+
+    private double lowestLimit(Route route) {
+        return limits.entrySet().stream()
+                .filter(e -> e.getKey().route() == route)
+                .mapToDouble(e -> e.getValue().getLimit())
+                .min()
+                .orElse(Double.NaN);
+    }
+}
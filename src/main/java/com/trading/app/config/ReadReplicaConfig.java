@@ -0,0 +1,88 @@
+package com.trading.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary/replica split (app.datasource.replica.enabled=true).
+ * Two Hikari pools, each sized on its own: the primary from spring.datasource.*, the replica from
+ * app.datasource.replica.*. The application's DataSource routes between them per transaction
+ * (ReplicaRoutingDataSource), so JPA, JdbcTemplate and Flyway all keep using a single bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                       @Value("${app.datasource.replica.url}") String url,
+                                       @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+                                       @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pool.setPoolName("replica");
+        return pool;
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      @Qualifier("replicaDataSource") DataSource replica,
+                                                      @Value("${app.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                                                      @Value("${app.datasource.replica.lag-check-interval:PT1S}") Duration checkInterval) {
+        return new ReplicaRoutingDataSource(primary, replica, maxLag.toMillis(), checkInterval.toMillis());
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routing) {
+        // Defers the checkout to the first statement, by which time the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routing) {
+        return registry -> {
+            Gauge.builder("app.datasource.replica.lag", routing, ReplicaRoutingDataSource::getLagMillis)
+                    .description("Upper bound on replica lag at the last check (ms)")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionCounter.builder("app.datasource.reads", routing, ReplicaRoutingDataSource::getReplicaReads)
+                    .description("Read-only transactions by the pool that served them")
+                    .tag("target", "replica")
+                    .register(registry);
+            FunctionCounter.builder("app.datasource.reads", routing, ReplicaRoutingDataSource::getPrimaryReads)
+                    .description("Read-only transactions by the pool that served them")
+                    .tag("target", "primary")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.trading.app.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread hints for {@link ReplicaRoutingDataSource}: the commit_seq a replica must have applied
+ * before this thread's reads may use it (read-your-writes), and whether a read went to a replica that
+ * was behind the commits this instance knows of. Both are no-ops while no replica is configured.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Long> REQUIRED_SEQ = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> BEHIND = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /** Raises (never lowers) the commit_seq this thread's replica reads must include. */
+    public static void requireSeq(long seq) {
+        Long current = REQUIRED_SEQ.get();
+        if (current == null || seq > current) REQUIRED_SEQ.set(seq);
+    }
+
+    public static long requiredSeq() {
+        Long seq = REQUIRED_SEQ.get();
+        return seq == null ? 0 : seq;
+    }
+
+    /** Runs reads that must see every commit so far, whatever their transaction's read-only flag. */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Long previous = REQUIRED_SEQ.get();
+        REQUIRED_SEQ.set(Long.MAX_VALUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) REQUIRED_SEQ.remove();
+            else REQUIRED_SEQ.set(previous);
+        }
+    }
+
+    public static void clear() {
+        REQUIRED_SEQ.remove();
+        BEHIND.remove();
+    }
+
+    /** Whether a read on this thread since the last reset may have missed commits this instance knows of. */
+    public static boolean isBehind() {
+        return BEHIND.get() != null;
+    }
+
+    public static void resetBehind() {
+        BEHIND.remove();
+    }
+
+    static void markBehind() {
+        BEHIND.set(Boolean.TRUE);
+    }
+}
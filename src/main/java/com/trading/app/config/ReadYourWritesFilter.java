@@ -0,0 +1,83 @@
+package com.trading.app.config;
+
+import com.trading.app.event.TradeEventsCommitted;
+import com.trading.app.model.TradeEvent;
+import jakarta.servlet.*;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Read-your-writes across requests when reads may be served by the replica.
+ * A request that commits gets a cookie carrying its newest commit_seq; while a client sends it back,
+ * its read-only transactions only use a replica that has applied that seq. The cookie lives for the
+ * staleness bound: after that, any replica still in use has applied it anyway.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReadYourWritesFilter implements Filter {
+
+    static final String COOKIE = "trade_seq";
+
+    private final ReplicaRoutingDataSource routing;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        Cookie[] cookies = ((HttpServletRequest) request).getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) requireSeq(cookie.getValue());
+            }
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        long seq = committed.events().stream().map(TradeEvent::getCommitSeq).filter(Objects::nonNull)
+                .mapToLong(Long::longValue).max().orElse(-1);
+        if (seq < 0) return;
+        routing.committed(seq);
+
+        // Only request threads: background writers have no client to answer
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return;
+        HttpServletResponse response = attributes.getResponse();
+        if (response == null || response.isCommitted()) return;
+
+        ReadRouting.requireSeq(seq); // Later reads in this same request
+        ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(seq))
+                .path("/")
+                .maxAge(Duration.ofMillis(routing.getMaxLagMillis()).plusSeconds(1))
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("None") // The frontend is served from another origin
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private static void requireSeq(String value) {
+        try {
+            ReadRouting.requireSeq(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // Not ours to reject; reads just get no read-your-writes guarantee
+        }
+    }
+}
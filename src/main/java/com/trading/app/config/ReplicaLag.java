@@ -0,0 +1,45 @@
+package com.trading.app.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Upper bound on how far a replica trails the primary, from the event log's gap-free commit_seq.
+ *
+ * Each check samples the primary's last_seq, then the replica's. A replica at seq r holds every commit
+ * up to r, so it misses nothing committed before the newest primary sample with seq <= r: its lag is at
+ * most the age of that sample. Samples are kept for the window; the newest one the replica had applied
+ * is kept beyond it, so a stalled replica's lag keeps growing instead of becoming unknown.
+ */
+final class ReplicaLag {
+
+    static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final long windowMillis;
+    private final Deque<long[]> samples = new ArrayDeque<>(); // {timeMillis, primarySeq}, oldest first
+    private long[] applied;                                     // newest sample the replica was seen to hold
+
+    ReplicaLag(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    synchronized void primaryAt(long timeMillis, long seq) {
+        samples.addLast(new long[]{timeMillis, seq});
+        while (samples.size() > 1 && samples.peekFirst()[0] < timeMillis - windowMillis) {
+            samples.removeFirst();
+        }
+    }
+
+    synchronized long lagMillis(long nowMillis, long replicaSeq) {
+        var newestFirst = samples.descendingIterator();
+        while (newestFirst.hasNext()) {
+            long[] sample = newestFirst.next();
+            if (sample[1] <= replicaSeq) {
+                applied = sample;
+                break;
+            }
+        }
+        if (applied == null || applied[1] > replicaSeq) return UNKNOWN;
+        return Math.max(0, nowMillis - applied[0]);
+    }
+}
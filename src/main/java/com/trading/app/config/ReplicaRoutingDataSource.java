@@ -0,0 +1,140 @@
+package com.trading.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ *
+ * A read-only transaction still goes to the primary when the replica is further behind than maxLag
+ * (or unreachable), or when it has not yet applied the commit_seq the thread requires (ReadRouting).
+ * Lag is sampled every checkInterval from event_log_sequence on both sides (see ReplicaLag).
+ *
+ * The routing key is read when a connection is first used, so this must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after begin.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String SEQ_SQL = "SELECT last_seq FROM event_log_sequence WHERE id = 1";
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+    private final ReplicaLag lag;
+
+    private final AtomicLong knownSeq = new AtomicLong();   // newest commit this instance knows of
+    private volatile long replicaSeq = -1;
+    private volatile long lagMillis = ReplicaLag.UNKNOWN;
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    private ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMillis, long checkIntervalMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.lag = new ReplicaLag(maxLagMillis);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkLag, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) checker.shutdownNow();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return Target.PRIMARY;
+
+        long applied = replicaSeq;
+        if (lagMillis > maxLagMillis || applied < ReadRouting.requiredSeq()) {
+            primaryReads.increment();
+            return Target.PRIMARY;
+        }
+        if (applied < knownSeq.get()) ReadRouting.markBehind();
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    /** Records a commit made by this instance; replica reads are flagged as behind until it is applied there. */
+    public void committed(long seq) {
+        knownSeq.accumulateAndGet(seq, Math::max);
+    }
+
+    void checkLag() {
+        long primarySeq;
+        try {
+            primarySeq = currentSeq(primary);
+        } catch (RuntimeException e) {
+            return; // Nothing to route to either way; the next check tries again
+        }
+        lag.primaryAt(System.currentTimeMillis(), primarySeq);
+        committed(primarySeq);
+
+        try {
+            long applied = currentSeq(replica);
+            long behind = lag.lagMillis(System.currentTimeMillis(), applied);
+            if (behind > maxLagMillis && lagMillis <= maxLagMillis) {
+                logger.warn("Replica is more than {} ms behind (at seq {}, primary at {}); reads go to the primary",
+                        maxLagMillis, applied, primarySeq);
+            }
+            replicaSeq = applied;
+            lagMillis = behind;
+        } catch (RuntimeException e) {
+            if (lagMillis != ReplicaLag.UNKNOWN) logger.warn("Replica unreachable; reads go to the primary", e);
+            lagMillis = ReplicaLag.UNKNOWN;
+        }
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /** Upper bound on replica lag from the last check, or NaN while unknown. */
+    public double getLagMillis() {
+        long current = lagMillis;
+        return current == ReplicaLag.UNKNOWN ? Double.NaN : current;
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    private static long currentSeq(JdbcTemplate jdbcTemplate) {
+        Long seq = jdbcTemplate.queryForObject(SEQ_SQL, Long.class);
+        return seq == null ? 0 : seq;
+    }
+}
@@ -0,0 +1,58 @@
+package com.trading.app.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Accept negotiation for responses written with a JsonGenerator instead of a message converter:
+ * JSON, CBOR or Smile, using the same mappers as the converters.
+ */
+@Component
+public class ResponseFormats {
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    public record Format(String name, MediaType mediaType, ObjectMapper mapper) {
+
+        // The caller owns the stream (the servlet container closes it)
+        public JsonGenerator generator(OutputStream out) throws IOException {
+            return mapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+    }
+
+    private final List<Format> formats;
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    public ResponseFormats(ObjectMapper objectMapper,
+                           MappingJackson2CborHttpMessageConverter cbor,
+                           MappingJackson2SmileHttpMessageConverter smile,
+                           ContentNegotiationManager contentNegotiationManager) {
+        // JSON first: it answers */* and requests without an Accept header
+        this.formats = List.of(
+                new Format("json", MediaType.APPLICATION_JSON, objectMapper),
+                new Format("cbor", MediaType.APPLICATION_CBOR, cbor.getObjectMapper()),
+                new Format("smile", SMILE, smile.getObjectMapper()));
+        this.contentNegotiationManager = contentNegotiationManager;
+    }
+
+    /** The first format the client accepts, in its order of preference. */
+    public Format negotiate(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        for (MediaType acceptable : contentNegotiationManager.resolveMediaTypes(request)) {
+            for (Format format : formats) {
+                if (acceptable.isCompatibleWith(format.mediaType())) return format;
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(formats.stream().map(Format::mediaType).toList());
+    }
+}
@@ -0,0 +1,110 @@
+package com.trading.app.config;
+
+import com.trading.app.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event store sharded by trade ref (app.shards.enabled=true), see ShardRouter.
+ * One Hikari pool per app.shards.urls entry, each sized like spring.datasource.hikari.* and logging in
+ * with spring.datasource credentials; shard 0 is the home database. The application's DataSource routes
+ * per transaction to the shard bound to the thread, and Flyway migrates every shard on startup.
+ * The pools are not beans, so in virtual-thread mode each is put behind its own BoundedDataSource here
+ * rather than by VirtualThreadConfig's post-processor.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.shards.enabled", havingValue = "true")
+public class ShardConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariConfig shardPoolConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    ShardRoutingDataSource shardRoutingDataSource(HikariConfig shardPoolConfig, DataSourceProperties properties,
+                                                  MeterRegistry meterRegistry,
+                                                  @Value("${app.shards.urls}") List<String> urls,
+                                                  @Value("${app.datasource.replica.enabled:false}") boolean replicaEnabled,
+                                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                                  @Value("${app.datasource.max-concurrent-connections:10}") int maxConcurrent,
+                                                  @Value("${app.datasource.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        // Both decide per transaction which pool to use; a replica per shard is not supported
+        if (replicaEnabled) {
+            throw new IllegalStateException("app.shards.enabled and app.datasource.replica.enabled cannot both be set");
+        }
+        if (urls.isEmpty()) throw new IllegalStateException("app.shards.urls lists no shards");
+
+        List<DataSource> pools = new ArrayList<>(urls.size());
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariConfig config = new HikariConfig();
+            shardPoolConfig.copyStateTo(config);
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setJdbcUrl(urls.get(shard).trim());
+            config.setUsername(properties.determineUsername());
+            config.setPassword(properties.determinePassword());
+            config.setPoolName("shard-" + shard);
+            config.setMetricRegistry(meterRegistry);
+            HikariDataSource pool = new HikariDataSource(config);
+            if (virtualThreads) {
+                BoundedDataSource bounded = new BoundedDataSource(pool, maxConcurrent, acquireTimeoutMs);
+                Tags tags = Tags.of("shard", String.valueOf(shard));
+                Gauge.builder("app.datasource.permits.waiting", bounded, BoundedDataSource::getWaitingThreads)
+                        .description("Threads queued for a connection permit")
+                        .tags(tags)
+                        .register(meterRegistry);
+                Gauge.builder("app.datasource.permits.available", bounded, BoundedDataSource::getAvailablePermits)
+                        .description("Connection permits not currently held")
+                        .tags(tags)
+                        .register(meterRegistry);
+                pools.add(bounded);
+            } else {
+                pools.add(pool);
+            }
+        }
+        logger.info("Event store sharded over {} databases", pools.size());
+        return new ShardRoutingDataSource(pools);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ShardRoutingDataSource routing) {
+        // Defers the checkout to the first statement, by which time the thread is bound to its shard
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource routing) {
+        return flyway -> {
+            for (int shard = 0; shard < routing.size(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(routing.shard(shard))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+}
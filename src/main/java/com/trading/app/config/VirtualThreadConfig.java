@@ -0,0 +1,54 @@
+package com.trading.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual-thread execution mode (spring.threads.virtual.enabled=true).
+ * Spring Boot moves Tomcat, the MVC async executor (streamed exports) and scheduling onto virtual
+ * threads; this puts the connection pool behind a BoundedDataSource so unbounded request
+ * concurrency still maps to a bounded number of JDBC checkouts.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(
+            @Value("${app.datasource.max-concurrent-connections:10}") int maxConcurrent,
+            @Value("${app.datasource.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    // A read replica pool (ReadReplicaConfig) is sized on its own
+                    int permits = "replicaDataSource".equals(beanName) ? pool.getMaximumPoolSize() : maxConcurrent;
+                    return new BoundedDataSource(pool, permits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder connectionPermitMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BoundedDataSource bounded) {
+                Gauge.builder("app.datasource.permits.waiting", bounded, BoundedDataSource::getWaitingThreads)
+                        .description("Threads queued for a connection permit")
+                        .register(registry);
+                Gauge.builder("app.datasource.permits.available", bounded, BoundedDataSource::getAvailablePermits)
+                        .description("Connection permits not currently held")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.trading.app.exception;
+
+import com.trading.app.controller.ChangeFeedController;
+import com.trading.app.controller.TradeController;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Client errors on the JSON API. Ordered ahead of GlobalExceptionHandler, whose redirect to the
+ * blotter page suits the UI but gives an API client a 302 for a request it got wrong.
+ */
+@RestControllerAdvice(assignableTypes = {TradeController.class, ChangeFeedController.class})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler {
+
+    // Bad cursors, bulk filters, oversized idempotency keys and the like
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail handleBadRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
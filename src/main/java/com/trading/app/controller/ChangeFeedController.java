@@ -0,0 +1,36 @@
+package com.trading.app.controller;
+
+import com.trading.app.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    // GET /api/events?after=<nextCursor>&limit=500&waitMs=20000 (Event log in commit order; waitMs long-polls when caught up)
+    @GetMapping
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getEvents(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "0") long waitMs) {
+
+        long[] afterSeq = changeFeedService.parseCursor(after);
+
+        // No request thread is held while waiting; the page is streamed once there is something to read
+        return changeFeedService.awaitAfter(afterSeq, waitMs).thenApply(ready -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> changeFeedService.writeEvents(afterSeq, limit, out)));
+    }
+}
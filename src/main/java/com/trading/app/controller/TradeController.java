@@ -1,65 +1,357 @@
 package com.trading.app.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.app.dto.BatchResult;
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.dto.BulkJob;
+import com.trading.app.cache.TradeLogVersion;
+import com.trading.app.config.ReadRouting;
+import com.trading.app.config.ResponseFormats;
+import com.trading.app.dto.CursorPage;
+import com.trading.app.dto.EventPartition;
+import com.trading.app.dto.ExportFilter;
+import com.trading.app.dto.ExposureFilter;
+import com.trading.app.dto.ExposureReport;
 import com.trading.app.dto.PageResult;
-import com.trading.app.dto.TradeAggregate;
+import com.trading.app.dto.PartitionMaintenanceResult;
+import com.trading.app.dto.ShardInfo;
+import com.trading.app.dto.ShardRebalanceResult;
+import com.trading.app.dto.SubmissionStatus;
+import com.trading.app.dto.TradeSummary;
 import com.trading.app.dto.TradeSubmission;
+import com.trading.app.exception.IngestionQueueFullException;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.service.ShardRebalanceService;
+import com.trading.app.service.TradeAnalyticsService;
+import com.trading.app.service.TradeArchiveService;
+import com.trading.app.service.TradeBulkService;
 import com.trading.app.service.TradeExportService;
+import com.trading.app.service.TradeFeedService;
+import com.trading.app.service.TradeIngestionService;
+import com.trading.app.service.TradeProjectionService;
 import com.trading.app.service.TradeReadService;
 import com.trading.app.service.TradeWriteService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/trades")
 @RequiredArgsConstructor
 public class TradeController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final TradeReadService readService;
     private final TradeWriteService writeService;
     private final TradeExportService exportService;
+    private final TradeProjectionService projectionService;
+    private final TradeIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    private final TradeLogVersion logVersion;
+    private final TradeFeedService feedService;
+    private final TradeArchiveService archiveService;
+    private final TradeAnalyticsService analyticsService;
+    private final TradeBulkService bulkService;
+    private final ResponseFormats responseFormats;
+    private final ShardRebalanceService shardRebalanceService;
 
-    // GET /api/trades?search=...&page=0&size=10
+    @Value("${app.read.stream.min-page-size:1000}")
+    private int streamMinPageSize;
+
+    // GET /api/trades?search=...&page=0&size=10 (JSON, CBOR or Smile by Accept; large pages are streamed)
     @GetMapping
-    public ResponseEntity<PageResult<TradeAggregate>> getTrades(
+    public ResponseEntity<PageResult<TradeSummary>> getTrades(
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "100") int size) { // Defaulting to 100 to simplify UI integration
+            @RequestParam(defaultValue = "100") int size, // Defaulting to 100 to simplify UI integration
+            NativeWebRequest request) throws IOException, HttpMediaTypeNotAcceptableException {
+
+        if (size > streamMinPageSize) {
+            writeStreamedPage(search, page, size, request);
+            return null;
+        }
+
+        // Any commit bumps the log version, so an unchanged ETag means an unchanged page
+        String etag = logVersion.etag();
+        if (request.checkNotModified(etag)) return null;
+
+        return versioned(etag, readService.getTradeDashboard(search, page, size));
+    }
+
+    // GET /api/trades/cursor?search=...&after=<nextCursor>&size=100 (Keyset pagination, stable under inserts)
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<TradeSummary>> getTradesAfter(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size,
+            WebRequest request) {
+
+        String etag = logVersion.etag();
+        if (request.checkNotModified(etag)) return null;
+
+        return versioned(etag, readService.getTradeDashboardAfter(search, after, size));
+    }
+
+    // GET /api/trades/{tradeRef}/history?after=<nextCursor>&size=50 (Audit trail, newest first)
+    @GetMapping("/{tradeRef}/history")
+    public ResponseEntity<CursorPage<TradeEvent>> getTradeHistory(
+            @PathVariable String tradeRef,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+
+        String etag = logVersion.etag();
+        if (request.checkNotModified(etag)) return null;
 
-        PageResult<TradeAggregate> result = readService.getTradeDashboard(search, page, size);
-        return ResponseEntity.ok(result);
+        return versioned(etag, readService.getTradeHistory(tradeRef, after, size));
     }
 
-    // POST /api/trades (Handles both BOOK and AMEND via mode field)
+    // GET /api/trades/stream?size=100 (SSE: one "snapshot" event, then a "trade" event per changed trade)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTrades(@RequestParam(defaultValue = "100") int size) {
+        return feedService.subscribe(size)
+                .map(emitter -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                        .body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    // POST /api/trades (Handles both BOOK and AMEND via mode field; Idempotency-Key makes retries safe)
     @PostMapping
-    public ResponseEntity<Void> saveTrade(@RequestBody TradeSubmission submission) {
-        writeService.handleSubmission(submission);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<SubmissionStatus> saveTrade(
+            @RequestBody TradeSubmission submission,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String key = keyOf(idempotencyKey);
+        if (ingestionService.isEnabled()) {
+            return accepted(() -> ingestionService.submit(submission, key));
+        }
+        return completed(writeService.handleSubmission(submission, key));
+    }
+
+    // POST /api/trades/batch (JSON array or NDJSON stream of submissions, read incrementally)
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResult> saveTrades(HttpServletRequest request) throws IOException {
+        try (MappingIterator<TradeSubmission> submissions =
+                     objectMapper.readerFor(TradeSubmission.class).readValues(request.getInputStream())) {
+            return ResponseEntity.ok(writeService.handleBatch(submissions));
+        }
     }
 
     // POST /api/trades/{id}/cancel
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<Void> cancelTrade(@PathVariable String id) {
-        writeService.cancelTrade(id);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<SubmissionStatus> cancelTrade(
+            @PathVariable String id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String key = keyOf(idempotencyKey);
+        if (ingestionService.isEnabled()) {
+            return accepted(() -> ingestionService.cancel(id, key));
+        }
+        return completed(writeService.cancelTrade(id, key));
     }
 
     // POST /api/trades/{id}/verify
     @PostMapping("/{id}/verify")
-    public ResponseEntity<Void> verifyTrade(@PathVariable String id) {
-        writeService.verifyTrade(id);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<SubmissionStatus> verifyTrade(
+            @PathVariable String id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String key = keyOf(idempotencyKey);
+        if (ingestionService.isEnabled()) {
+            return accepted(() -> ingestionService.verify(id, key));
+        }
+        return completed(writeService.verifyTrade(id, key));
+    }
+
+    // POST /api/trades/bulk/verify {"counterparty": "...", "fromDate": "...", "tradeRefs": [...]} (Runs in the background)
+    @PostMapping("/bulk/verify")
+    public ResponseEntity<BulkJob> bulkVerify(@RequestBody BulkFilter filter) {
+        return bulkAccepted(bulkService.verify(filter));
+    }
+
+    // POST /api/trades/bulk/cancel (Same filter as bulk verify)
+    @PostMapping("/bulk/cancel")
+    public ResponseEntity<BulkJob> bulkCancel(@RequestBody BulkFilter filter) {
+        return bulkAccepted(bulkService.cancel(filter));
+    }
+
+    // GET /api/trades/bulk/{jobId} (Matched and processed counts of a bulk job)
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkJob> getBulkJob(@PathVariable String jobId) {
+        return bulkService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    // GET /api/trades/export
+    // GET /api/trades/submissions/{eventId} (Status of an async submission)
+    @GetMapping("/submissions/{eventId}")
+    public ResponseEntity<SubmissionStatus> getSubmissionStatus(@PathVariable String eventId) {
+        return ingestionService.getStatus(eventId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // GET /api/trades/export?from=2024-01-01&to=2024-01-31&status=LIVE (Streamed, gzip if accepted)
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportCsv() {
-        String csvData = exportService.generateCsvExport();
-        return ResponseEntity.ok()
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ExportFilter filter = new ExportFilter(from, to, status);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                exportService.writeCsvExport(filter, gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.writeCsvExport(filter, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=trade_blotter.csv")
-                .contentType(MediaType.TEXT_PLAIN)
-                .body(csvData.getBytes());
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.TEXT_PLAIN);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // GET /api/trades/analytics?groupBy=counterparty,status&status=LIVE&from=2024-01-01 (Notional and trade counts)
+    @GetMapping("/analytics")
+    public ResponseEntity<ExposureReport> getExposure(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExposureFilter filter = new ExposureFilter(counterparty, subject, status, from, to);
+        return ResponseEntity.ok(analyticsService.getExposure(groupBy, filter));
+    }
+
+    // POST /api/trades/projection/rebuild (Regenerates trade_state from the event log)
+    @PostMapping("/projection/rebuild")
+    public ResponseEntity<Integer> rebuildProjection() {
+        int trades = projectionService.rebuild();
+        analyticsService.rebuild();
+        return ResponseEntity.ok(trades);
+    }
+
+    // GET /api/trades/partitions (Monthly event-log partitions: attached, archived, restored)
+    @GetMapping("/partitions")
+    public ResponseEntity<List<EventPartition>> listPartitions() {
+        return ResponseEntity.ok(archiveService.listPartitions());
+    }
+
+    // POST /api/trades/partitions/maintain (Create upcoming partitions, archive those past retention)
+    @PostMapping("/partitions/maintain")
+    public ResponseEntity<PartitionMaintenanceResult> maintainPartitions() {
+        return ResponseEntity.ok(archiveService.maintainPartitions());
+    }
+
+    // POST /api/trades/partitions/2024-01/restore (Re-attach an archived month, on every shard that archived it)
+    @PostMapping("/partitions/{month}/restore")
+    public ResponseEntity<List<EventPartition>> restorePartition(@PathVariable String month) {
+        return ResponseEntity.ok(archiveService.restore(YearMonth.parse(month)));
+    }
+
+    // GET /api/trades/shards (Trades and events per shard, and how many belong on another shard)
+    @GetMapping("/shards")
+    public ResponseEntity<List<ShardInfo>> listShards() {
+        return ResponseEntity.ok(shardRebalanceService.listShards());
+    }
+
+    // POST /api/trades/shards/rebalance (Move trades to the shard they hash to, after shards were added)
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<ShardRebalanceResult> rebalanceShards() {
+        return ResponseEntity.ok(shardRebalanceService.rebalance());
+    }
+
+    // --- Helpers ---
+
+    // Async mode: 202 with the event id as soon as the write is queued, 503 when the queue is full
+    private ResponseEntity<SubmissionStatus> accepted(Supplier<TradeIngestionService.Ticket> enqueue) {
+        TradeIngestionService.Ticket ticket;
+        try {
+            ticket = enqueue.get();
+        } catch (IngestionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        if (ticket.replayed()) {
+            // Still queued (202) or already committed (200): report the original request's event either way
+            SubmissionStatus original = ingestionService.getStatus(ticket.eventId())
+                    .orElseGet(() -> SubmissionStatus.committed(ticket.eventId()));
+            HttpStatus code = "PENDING".equals(original.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+            return ResponseEntity.status(code).header(IDEMPOTENT_REPLAYED, "true").body(original.asReplay());
+        }
+        return ResponseEntity.accepted().body(SubmissionStatus.pending(ticket.eventId()));
+    }
+
+    // A page read from a replica still catching up may predate this version: not to be revalidated with its ETag
+    private <T> ResponseEntity<T> versioned(String etag, T body) {
+        if (ReadRouting.isBehind()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).varyBy(HttpHeaders.ACCEPT).body(body);
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    // Written here rather than by a converter, so no page cache and no ETag: which pool serves the rows (and so
+    // how current they are) is only known once the headers are out
+    private void writeStreamedPage(String search, int page, int size, NativeWebRequest request)
+            throws IOException, HttpMediaTypeNotAcceptableException {
+        ResponseFormats.Format format = responseFormats.negotiate(request);
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        response.setContentType(format.mediaType().toString());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        readService.writeTradeDashboard(search, page, size, format, response.getOutputStream());
+    }
+
+    private ResponseEntity<BulkJob> bulkAccepted(BulkJob job) {
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, "/api/trades/bulk/" + job.getJobId())
+                .body(job);
+    }
+
+    // Sync mode: 200 with the committed (or, for a repeated key, the original) event id
+    private ResponseEntity<SubmissionStatus> completed(SubmissionStatus status) {
+        if (status.isReplayed()) {
+            return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED, "true").body(status);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    private String keyOf(String idempotencyKey) {
+        return idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey.trim();
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one submission within a batch, in input order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index;
+    private String eventId;
+    private String tradeRef;
+    private String status; // ACCEPTED or REJECTED
+    private String error;
+
+    public static BatchItemResult accepted(int index, String eventId, String tradeRef) {
+        return new BatchItemResult(index, eventId, tradeRef, "ACCEPTED", null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, null, null, "REJECTED", error);
+    }
+
+    public void reject(String error) {
+        this.status = "REJECTED";
+        this.error = error;
+    }
+}
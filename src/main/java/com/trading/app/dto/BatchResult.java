@@ -0,0 +1,14 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BatchResult {
+    private int accepted;
+    private int rejected;
+    private List<BatchItemResult> items;
+}
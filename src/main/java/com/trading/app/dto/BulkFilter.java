@@ -0,0 +1,30 @@
+package com.trading.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Selects trades for a bulk verify/cancel. Null fields are not applied; at least one must be set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFilter {
+    private String counterparty;
+    private String subject;
+    private String source;
+    private LocalDate fromDate;    // Inclusive trading date
+    private LocalDate toDate;      // Inclusive trading date
+    private List<String> tradeRefs;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return counterparty == null && subject == null && source == null && fromDate == null && toDate == null
+                && (tradeRefs == null || tradeRefs.isEmpty());
+    }
+}
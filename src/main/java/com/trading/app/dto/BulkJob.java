@@ -0,0 +1,22 @@
+package com.trading.app.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk verify/cancel: QUEUED, RUNNING, COMPLETED or FAILED.
+ * matched is counted when the job starts; processed grows by one committed chunk at a time.
+ */
+@Data
+public class BulkJob {
+    private final String jobId;
+    private final String action;
+    private final BulkFilter filter;
+    private volatile String status = "QUEUED";
+    private volatile long matched;
+    private volatile long processed;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+}
@@ -0,0 +1,17 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Keyset page: pass nextCursor back as "after" to fetch the following page (null when exhausted).
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> data;
+    private String nextCursor;
+    private int size;
+}
@@ -0,0 +1,20 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A monthly event-log partition: ATTACHED (live), ARCHIVED (on disk only) or RESTORED (attached from an archive).
+ * rowCount is the planner estimate for attached partitions and the exact count for archives. Each shard has
+ * its own partitions (shard is 0 when the event store is not sharded).
+ */
+@Data
+@AllArgsConstructor
+public class EventPartition {
+    private String name;
+    private String month;
+    private String status;
+    private long rowCount;
+    private String filePath;
+    private int shard;
+}
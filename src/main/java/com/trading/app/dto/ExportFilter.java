@@ -0,0 +1,19 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters for the CSV export. Null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportFilter {
+    private LocalDate fromDate; // Inclusive trading date
+    private LocalDate toDate;   // Inclusive trading date
+    private String status;      // LIVE, VERIFIED, CANCELLED
+}
@@ -0,0 +1,21 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters for the exposure analytics. Null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExposureFilter {
+    private String counterparty;
+    private String subject;
+    private String status;      // LIVE, VERIFIED, CANCELLED
+    private LocalDate fromDate; // Inclusive trading date
+    private LocalDate toDate;   // Inclusive trading date
+}
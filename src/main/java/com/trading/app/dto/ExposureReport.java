@@ -0,0 +1,20 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Trade counts and notional grouped by the requested dimensions, largest notional first.
+ * source is "memory" once the in-memory accumulators are built, "database" while they are still loading.
+ */
+@Data
+@AllArgsConstructor
+public class ExposureReport {
+    private List<String> groupBy;
+    private List<ExposureRow> rows;
+    private long trades;
+    private double notional;
+    private String source;
+}
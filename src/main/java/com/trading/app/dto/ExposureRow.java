@@ -0,0 +1,22 @@
+package com.trading.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * One group of the exposure report. Dimensions that are not grouped on are left out.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExposureRow {
+    private String counterparty;
+    private String subject;
+    private String status;
+    private LocalDate tradingDate;
+    private long trades;
+    private double notional;
+}
@@ -0,0 +1,16 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Partitions created ahead of time and partitions archived by one maintenance run.
+ */
+@Data
+@AllArgsConstructor
+public class PartitionMaintenanceResult {
+    private List<String> created;
+    private List<String> archived;
+}
@@ -0,0 +1,17 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One database of the sharded event store: how many trades (trade_state rows) and events it holds,
+ * and how many of those trades belong on another shard (left behind by a shard being added).
+ */
+@Data
+@AllArgsConstructor
+public class ShardInfo {
+    private int shard;
+    private long trades;
+    private long events;
+    private long misplaced;
+}
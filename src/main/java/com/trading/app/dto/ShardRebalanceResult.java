@@ -0,0 +1,19 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One rebalance run: trades scanned on every shard, and the trades, events and idempotency keys moved
+ * to the shard their trade ref now hashes to.
+ */
+@Data
+@AllArgsConstructor
+public class ShardRebalanceResult {
+    private int shards;
+    private long scanned;
+    private long movedTrades;
+    private long movedEvents;
+    private long movedKeys;
+    private long elapsedMs;
+}
@@ -0,0 +1,35 @@
+package com.trading.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of a submitted event: PENDING, COMMITTED or FAILED.
+ * replayed = the Idempotency-Key was seen before and eventId is the original request's event.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionStatus {
+    private String eventId;
+    private String status;
+    private String error;
+    private boolean replayed;
+
+    public static SubmissionStatus pending(String eventId) {
+        return new SubmissionStatus(eventId, "PENDING", null, false);
+    }
+
+    public static SubmissionStatus committed(String eventId) {
+        return new SubmissionStatus(eventId, "COMMITTED", null, false);
+    }
+
+    public static SubmissionStatus failed(String eventId, String error) {
+        return new SubmissionStatus(eventId, "FAILED", error, false);
+    }
+
+    public SubmissionStatus asReplay() {
+        return new SubmissionStatus(eventId, status, error, true);
+    }
+}
@@ -0,0 +1,31 @@
+package com.trading.app.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One blotter row, straight from the trade_state projection.
+ * The audit trail is fetched on demand from GET /api/trades/{tradeRef}/history.
+ */
+@Data
+@NoArgsConstructor
+public class TradeSummary {
+    private String tradeRef;
+    private String subject;
+    private String sourceSystem;
+    private LocalDate tradingDate;
+
+    private String latestEventId;
+    private String latestEventType;
+    private LocalDateTime latestEventTime;
+    private int eventCount;
+
+    // UI Helper Fields
+    private String status;        // LIVE, VERIFIED, CANCELLED
+    private String counterparty;
+    private Double notional;
+    private boolean isModifiable;
+}
@@ -0,0 +1,15 @@
+package com.trading.app.event;
+
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Published by the write path for every persisted group of events.
+ * Listeners use @TransactionalEventListener so they only see events that actually committed.
+ * priorStates holds the trade_state rows as they were before these events (absent for new trades).
+ */
+public record TradeEventsCommitted(List<TradeEvent> events, Map<String, TradeState> priorStates) {
+}
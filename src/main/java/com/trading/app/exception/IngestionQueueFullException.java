@@ -0,0 +1,10 @@
+package com.trading.app.exception;
+
+/**
+ * Raised when the async ingestion queue stays full past the enqueue timeout (back-pressure to the caller).
+ */
+public class IngestionQueueFullException extends RuntimeException {
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.trading.app.id;
+
+/**
+ * Issues trade refs and event ids for new events. Selected by app.ids.scheme (legacy or ulid).
+ *
+ * Ids from either scheme stay readable after switching: lookups recognise both formats
+ * (see LegacyIdGenerator.tradeRefOf and Ulid.timestampOf).
+ */
+public interface IdGenerator {
+
+    String newTradeRef(String subject, String source);
+
+    // action is BOOK, AMEND, CANCEL or VERIFY
+    String newEventId(String tradeRef, String action);
+}
@@ -0,0 +1,36 @@
+package com.trading.app.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The original scheme: "subject:source:hex8" trade refs and "tradeRef:ACTION[:hex4]" event ids.
+ * Random and variable length, so inserts land all over the primary key indexes.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.scheme", havingValue = "legacy")
+public class LegacyIdGenerator implements IdGenerator {
+
+    @Override
+    public String newTradeRef(String subject, String source) {
+        return subject + ":" + source + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    public String newEventId(String tradeRef, String action) {
+        if ("BOOK".equals(action)) return tradeRef + ":BOOK";
+        return tradeRef + ":" + action + ":" + UUID.randomUUID().toString().substring(0, 4);
+    }
+
+    // Legacy event ids (and refs) start with the trade ref; other formats yield empty
+    public static Optional<String> tradeRefOf(String id) {
+        int first = id.indexOf(':');
+        int second = first < 0 ? -1 : id.indexOf(':', first + 1);
+        if (second < 0) return Optional.empty();
+        int third = id.indexOf(':', second + 1);
+        return Optional.of(third < 0 ? id : id.substring(0, third));
+    }
+}
@@ -0,0 +1,78 @@
+package com.trading.app.id;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Monotonic ULID source: 48-bit millisecond timestamp + 80 random bits, Crockford base32.
+ *
+ * Within one millisecond (or if the clock steps back) the random part is incremented rather than
+ * redrawn, so ids from one instance are strictly increasing and never collide; ids from different
+ * instances are kept apart by the 80 random bits.
+ */
+public class Ulid {
+
+    public static final int LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private long lastMillis = -1;
+    private long randomHigh; // 16 bits
+    private long randomLow;  // 64 bits
+
+    public synchronized String next() {
+        long now = System.currentTimeMillis();
+        if (now > lastMillis) {
+            lastMillis = now;
+            randomHigh = random.nextInt(1 << 16);
+            randomLow = random.nextLong();
+        } else if (++randomLow == 0 && ++randomHigh == 1 << 16) {
+            // 2^80 ids in one millisecond: borrow the next one
+            lastMillis++;
+            randomHigh = 0;
+        }
+        return encode(lastMillis << 16 | randomHigh, randomLow);
+    }
+
+    // Creation time in epoch millis, or empty if the id is not a ULID
+    public static Optional<Long> timestampOf(String id) {
+        if (id == null || id.length() != LENGTH) return Optional.empty();
+        long millis = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) return Optional.empty();
+            if (i < 10) millis = millis << 5 | value;
+        }
+        // The first character only carries 3 bits of the 128
+        return id.charAt(0) <= '7' ? Optional.of(millis) : Optional.empty();
+    }
+
+    private static String encode(long high, long low) {
+        char[] out = new char[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            int shift = 125 - 5 * i; // bit offset of this character within the 128-bit value
+            long bits;
+            if (shift >= 64) {
+                bits = high >>> (shift - 64);
+            } else if (shift + 5 <= 64) {
+                bits = low >>> shift;
+            } else {
+                bits = (low >>> shift) | (high << (64 - shift));
+            }
+            out[i] = ALPHABET[(int) (bits & 31)];
+        }
+        return new String(out);
+    }
+}
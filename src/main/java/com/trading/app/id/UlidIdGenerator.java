@@ -0,0 +1,26 @@
+package com.trading.app.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * ULIDs for both trade refs and event ids: 26 fixed-width characters that sort by creation time,
+ * so primary key inserts append at the right edge of the index instead of splitting random pages.
+ * The trade ref lives in its own column, so event ids no longer embed it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.scheme", havingValue = "ulid", matchIfMissing = true)
+public class UlidIdGenerator implements IdGenerator {
+
+    private final Ulid ulid = new Ulid();
+
+    @Override
+    public String newTradeRef(String subject, String source) {
+        return ulid.next();
+    }
+
+    @Override
+    public String newEventId(String tradeRef, String action) {
+        return ulid.next();
+    }
+}
@@ -1,18 +1,21 @@
 package com.trading.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.ColumnTransformer;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "trading_pipeline_tracker")
 @Getter
 @Setter
-public class TradeEvent {
+public class TradeEvent implements Persistable<String> {
 
     @Id
     @Column(name = "event_id")
@@ -36,6 +39,27 @@ public class TradeEvent {
     @ColumnTransformer(write = "?::jsonb")
     private String data;
 
+    // Typed copies of the payload fields, so reads never have to parse the jsonb
+    @Column(name = "trade_ref")
+    private String tradeRef;
+
+    private String counterparty;
+
+    @Column(name = "notional_amount")
+    private Double notionalAmount;
+
+    private String status;
+
+    // Position in commit order (change feed cursor), stamped by TradeRepository.stampCommitSeq after the insert
+    @Column(name = "commit_seq", insertable = false, updatable = false)
+    private Long commitSeq;
+
+    // Events are append-only: freshly built ones are always inserts, so save() can skip the merge SELECT
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEvent;
+
     public TradeEvent() {}
 
     public TradeEvent(String eventId, String eventType, String subject, String sourceSystem, LocalDate tradingDate, LocalDateTime eventTime, String data) {
@@ -46,5 +70,33 @@ public class TradeEvent {
         this.tradingDate = tradingDate;
         this.eventTime = eventTime;
         this.data = data;
+        this.newEvent = true;
+    }
+
+    public TradeEvent(String eventId, String eventType, String subject, String sourceSystem, LocalDate tradingDate, LocalDateTime eventTime, String data,
+                      String tradeRef, String counterparty, Double notionalAmount, String status) {
+        this(eventId, eventType, subject, sourceSystem, tradingDate, eventTime, data);
+        this.tradeRef = tradeRef;
+        this.counterparty = counterparty;
+        this.notionalAmount = notionalAmount;
+        this.status = status;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return eventId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEvent;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEvent = false;
     }
 }
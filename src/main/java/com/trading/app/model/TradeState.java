@@ -0,0 +1,92 @@
+package com.trading.app.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Current state of a single trade, projected from the event log.
+ * Written by TradeProjectionService in the same transaction as each event.
+ */
+@Entity
+@Table(name = "trade_state")
+@Getter
+@Setter
+public class TradeState {
+
+    @Id
+    @Column(name = "trade_ref")
+    private String tradeRef;
+
+    private String status;
+
+    private String subject;
+
+    @Column(name = "source_system")
+    private String sourceSystem;
+
+    private String counterparty;
+
+    private Double notional;
+
+    @Column(name = "trading_date")
+    private LocalDate tradingDate;
+
+    // Booking date; with tradingDate (latest event) it bounds the trade's history
+    @Column(name = "first_trading_date")
+    private LocalDate firstTradingDate;
+
+    @Column(name = "latest_event_id")
+    private String latestEventId;
+
+    @Column(name = "latest_event_type")
+    private String latestEventType;
+
+    @Column(name = "latest_event_time")
+    private LocalDateTime latestEventTime;
+
+    @Column(name = "event_count")
+    private int eventCount;
+
+    // Blotter order, newest first (ORDER BY latest_event_time DESC, trade_ref DESC): merges per-shard pages
+    public static final Comparator<TradeState> NEWEST_FIRST = Comparator
+            .comparing(TradeState::getLatestEventTime, Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(TradeState::getTradeRef, Comparator.reverseOrder());
+
+    public TradeState() {}
+
+    // The projection upsert applied in memory: counterparty and notional carry over when the event omits them
+    public static TradeState apply(TradeState current, TradeEvent event) {
+        TradeState next = new TradeState();
+        next.tradeRef = event.getTradeRef();
+        next.status = statusFor(event.getEventType());
+        next.subject = event.getSubject();
+        next.sourceSystem = event.getSourceSystem();
+        next.counterparty = event.getCounterparty() != null || current == null ? event.getCounterparty() : current.counterparty;
+        next.notional = event.getNotionalAmount() != null || current == null ? event.getNotionalAmount() : current.notional;
+        next.tradingDate = event.getTradingDate();
+        next.firstTradingDate = current == null || current.firstTradingDate == null
+                || event.getTradingDate().isBefore(current.firstTradingDate) ? event.getTradingDate() : current.firstTradingDate;
+        next.latestEventId = event.getEventId();
+        next.latestEventType = event.getEventType();
+        next.latestEventTime = event.getEventTime();
+        next.eventCount = current == null ? 1 : current.eventCount + 1;
+        return next;
+    }
+
+    // Maps an event type onto the blotter status (LIVE, VERIFIED, CANCELLED)
+    public static String statusFor(String eventType) {
+        switch (eventType) {
+            case "TRADE_CANCELLED":
+                return "CANCELLED";
+            case "TRADE_VERIFIED":
+                return "VERIFIED";
+            default:
+                return "LIVE";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.trading.app.partition;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Naming and DDL for the monthly trading_date partitions of the event log, used by the archive job and
+ * the shard rebalance at runtime. The V9 migration keeps its own frozen copy (same partition names).
+ */
+public final class EventPartitions {
+
+    public static final String PARENT = "trading_pipeline_tracker";
+    public static final String DEFAULT_PARTITION = PARENT + "_default";
+
+    // Explicit column list so COPY archives stay restorable if columns are added later
+    public static final String COLUMNS =
+            "event_id, event_type, subject, source_system, trading_date, event_time, data, " +
+            "trade_ref, counterparty, notional_amount, status";
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final Pattern NAME = Pattern.compile(PARENT + "_y(\\d{4})m(\\d{2})");
+
+    private EventPartitions() {}
+
+    public static String nameFor(YearMonth month) {
+        return PARENT + "_" + month.format(SUFFIX);
+    }
+
+    public static Optional<YearMonth> monthOf(String partitionName) {
+        Matcher m = NAME.matcher(partitionName);
+        if (!m.matches()) return Optional.empty();
+        return Optional.of(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+    }
+
+    public static String createSql(YearMonth month) {
+        return createSql(month, PARENT);
+    }
+
+    public static String createSql(YearMonth month, String parent) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return "CREATE TABLE IF NOT EXISTS " + nameFor(month) + " PARTITION OF " + parent +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+    }
+}
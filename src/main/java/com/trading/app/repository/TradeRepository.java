@@ -2,12 +2,56 @@ package com.trading.app.repository;
 
 import com.trading.app.model.TradeEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TradeRepository extends JpaRepository<TradeEvent, String> {
+
+    String HISTORY_RANGE = "SELECT * FROM trading_pipeline_tracker WHERE trade_ref = :tradeRef" +
+            " AND trading_date BETWEEN :from AND :to";
+
+    String HISTORY_ORDER = " ORDER BY event_time DESC, event_id DESC LIMIT :limit";
+
     // Fetch ALL events, newest first
     List<TradeEvent> findAllByOrderByEventTimeDesc();
-}
\ No newline at end of file
+
+    // Reserves the next block of commit_seq values and stamps it on the given (already flushed) events in array
+    // order, returning the value just below the block once per stamped row. The counter row stays locked until
+    // the writing transaction ends, so concurrent writers commit their blocks in sequence order: it is the last
+    // statement before commit, and the inserts and projection upserts run outside that lock.
+    @Query(value = "WITH seq AS (UPDATE event_log_sequence SET last_seq = last_seq + cardinality(:eventIds) WHERE id = 1" +
+            " RETURNING last_seq - cardinality(:eventIds) AS base)" +
+            " UPDATE trading_pipeline_tracker t SET commit_seq = seq.base + e.ord" +
+            " FROM seq, unnest(:eventIds, :tradingDates) WITH ORDINALITY AS e(event_id, trading_date, ord)" +
+            " WHERE t.event_id = e.event_id AND t.trading_date = e.trading_date" +
+            " RETURNING seq.base",
+            nativeQuery = true)
+    List<Long> stampCommitSeq(@Param("eventIds") String[] eventIds, @Param("tradingDates") LocalDate[] tradingDates);
+
+    // Point lookup pruned to the trade's date range (event_id alone is probed in every partition)
+    Optional<TradeEvent> findByEventIdAndTradingDateBetween(String eventId, LocalDate from, LocalDate to);
+
+    // --- One trade's history, keyset-paged on (event_time, event_id) via idx_trading_event_trade_ref ---
+
+    @Query(value = HISTORY_RANGE + HISTORY_ORDER, nativeQuery = true)
+    List<TradeEvent> findHistoryFirstPage(@Param("tradeRef") String tradeRef,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          @Param("limit") int limit);
+
+    @Query(value = HISTORY_RANGE + " AND (event_time, event_id) < (:afterTime, :afterId)" + HISTORY_ORDER,
+            nativeQuery = true)
+    List<TradeEvent> findHistoryPageAfter(@Param("tradeRef") String tradeRef,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          @Param("afterTime") LocalDateTime afterTime,
+                                          @Param("afterId") String afterId,
+                                          @Param("limit") int limit);
+}
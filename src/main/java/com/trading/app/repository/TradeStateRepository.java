@@ -0,0 +1,53 @@
+package com.trading.app.repository;
+
+import com.trading.app.model.TradeState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TradeStateRepository extends JpaRepository<TradeState, String> {
+
+    String SEARCH_PREDICATE = "(lower(trade_ref) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(counterparty) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(subject) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(status) LIKE :pattern ESCAPE '\\')";
+
+    String BLOTTER_ORDER = " ORDER BY latest_event_time DESC, trade_ref DESC LIMIT :limit";
+
+    // Case-insensitive substring match over the blotter search fields (pattern is pre-escaped by the caller)
+    @Query("SELECT s FROM TradeState s WHERE " +
+            "lower(s.tradeRef) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(s.counterparty) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(s.subject) LIKE :pattern ESCAPE '\\' OR " +
+            "lower(s.status) LIKE :pattern ESCAPE '\\'")
+    Page<TradeState> search(@Param("pattern") String pattern, Pageable pageable);
+
+    // --- Keyset pagination on (latest_event_time, trade_ref), served by idx_trade_state_latest ---
+
+    @Query(value = "SELECT * FROM trade_state" + BLOTTER_ORDER, nativeQuery = true)
+    List<TradeState> findFirstPage(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM trade_state WHERE (latest_event_time, trade_ref) < (:afterTime, :afterRef)" + BLOTTER_ORDER,
+            nativeQuery = true)
+    List<TradeState> findPageAfter(@Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterRef") String afterRef,
+                                   @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM trade_state WHERE " + SEARCH_PREDICATE + BLOTTER_ORDER, nativeQuery = true)
+    List<TradeState> searchFirstPage(@Param("pattern") String pattern, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM trade_state WHERE " + SEARCH_PREDICATE +
+            " AND (latest_event_time, trade_ref) < (:afterTime, :afterRef)" + BLOTTER_ORDER,
+            nativeQuery = true)
+    List<TradeState> searchPageAfter(@Param("pattern") String pattern,
+                                     @Param("afterTime") LocalDateTime afterTime,
+                                     @Param("afterRef") String afterRef,
+                                     @Param("limit") int limit);
+}
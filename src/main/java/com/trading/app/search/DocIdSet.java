@@ -0,0 +1,82 @@
+package com.trading.app.search;
+
+import java.util.Arrays;
+
+/**
+ * Append-only set of doc ids. Stored as a sorted int array while sparse and
+ * switched to a bitmap once it covers more than 1/32 of the id space.
+ */
+final class DocIdSet {
+
+    private int[] ids = new int[4];
+    private long[] bits;
+    private int size;
+
+    // Ids must be added in increasing order (doc ids are assigned monotonically)
+    void add(int docId) {
+        if (bits != null) {
+            ensureBits(docId);
+            if ((bits[docId >>> 6] & (1L << docId)) == 0) size++;
+            bits[docId >>> 6] |= 1L << docId;
+            return;
+        }
+        if (size > 0 && ids[size - 1] == docId) return;
+        if (size == ids.length) {
+            // Dense enough that a bitmap is smaller than the array
+            if ((long) size * 32 > docId) {
+                toBitmap(docId);
+                add(docId);
+                return;
+            }
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = docId;
+    }
+
+    boolean contains(int docId) {
+        if (bits != null) {
+            int word = docId >>> 6;
+            return word < bits.length && (bits[word] & (1L << docId)) != 0;
+        }
+        return Arrays.binarySearch(ids, 0, size, docId) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Largest member <= from, or -1
+    int previous(int from) {
+        if (from < 0) return -1;
+        if (bits != null) {
+            int word = Math.min(from >>> 6, bits.length - 1);
+            long w = word == (from >>> 6) ? bits[word] & (-1L >>> (63 - (from & 63))) : bits[word];
+            while (true) {
+                if (w != 0) return (word << 6) + 63 - Long.numberOfLeadingZeros(w);
+                if (--word < 0) return -1;
+                w = bits[word];
+            }
+        }
+        int i = Arrays.binarySearch(ids, 0, size, from);
+        if (i >= 0) return ids[i];
+        int insertion = -i - 1;
+        return insertion == 0 ? -1 : ids[insertion - 1];
+    }
+
+    long memoryBytes() {
+        return bits != null ? (long) bits.length * 8 : (long) ids.length * 4;
+    }
+
+    private void toBitmap(int maxDocId) {
+        bits = new long[(maxDocId >>> 6) + 1];
+        for (int i = 0; i < size; i++) {
+            bits[ids[i] >>> 6] |= 1L << ids[i];
+        }
+        ids = null;
+    }
+
+    private void ensureBits(int docId) {
+        int word = docId >>> 6;
+        if (word >= bits.length) bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 3 / 2));
+    }
+}
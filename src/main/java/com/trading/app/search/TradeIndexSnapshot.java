@@ -0,0 +1,147 @@
+package com.trading.app.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the search index documents, tagged with the event log commit_seq it reflects.
+ *
+ * Layout: magic, version, then one record per trade (sortKey, tradeRef, counterparty, subject, status;
+ * strings as a length-prefixed UTF-8 run, -1 for null), then a trailer of lastSeq, createdAt, record
+ * count and a CRC32 of everything before it. Loading maps the file read-only and walks it in place, so
+ * a cold start pays for one sequential read instead of a trade_state scan.
+ */
+public final class TradeIndexSnapshot {
+
+    private static final int MAGIC = 0x54495358; // "TISX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 24;
+
+    public record Header(long lastSeq, long createdAtMillis, int trades) {}
+
+    private TradeIndexSnapshot() {
+    }
+
+    /** Streams records into a temp file next to the target; {@link #commit} moves it into place atomically. */
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final CRC32 crc = new CRC32();
+        private final OutputStream raw;
+        private final DataOutputStream out;
+        private int count;
+        private boolean committed;
+
+        public Writer(Path target) throws IOException {
+            Path dir = target.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            this.target = target;
+            this.temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+            this.raw = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16);
+            this.out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public void add(String tradeRef, String counterparty, String subject, String status, long sortKey) throws IOException {
+            out.writeLong(sortKey);
+            writeString(tradeRef);
+            writeString(counterparty);
+            writeString(subject);
+            writeString(status);
+            count++;
+        }
+
+        public Header commit(long lastSeq) throws IOException {
+            Header header = new Header(lastSeq, System.currentTimeMillis(), count);
+            out.writeLong(header.lastSeq());
+            out.writeLong(header.createdAtMillis());
+            out.writeInt(header.trades());
+            out.flush();
+            new DataOutputStream(raw).writeInt((int) crc.getValue());
+            raw.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return header;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+            raw.close();
+            Files.deleteIfExists(temp);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Loads every record of the snapshot at {@code path} into {@code index}. Throws IOException when the
+     * file is missing, from another format version, truncated or corrupt; the index may then hold a
+     * partial load and should be discarded.
+     */
+    public static Header load(Path path, TradeSearchIndex index) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size - TRAILER_BYTES;
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a version " + VERSION + " trade index snapshot");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            Header header = new Header(buffer.getLong(end), buffer.getLong(end + 8), buffer.getInt(end + 16));
+
+            byte[] scratch = new byte[256];
+            buffer.position(HEADER_BYTES);
+            int loaded = 0;
+            while (buffer.position() < end) {
+                long sortKey = buffer.getLong();
+                String tradeRef = readString(buffer, scratch);
+                String counterparty = readString(buffer, scratch);
+                String subject = readString(buffer, scratch);
+                String status = readString(buffer, scratch);
+                index.upsert(tradeRef, counterparty, subject, status, sortKey);
+                loaded++;
+            }
+            if (loaded != header.trades()) {
+                throw new IOException("Snapshot holds " + loaded + " trades, trailer says " + header.trades());
+            }
+            return header;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,317 @@
+package com.trading.app.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the blotter search fields (trade ref, counterparty, subject, status).
+ *
+ * Each trade is one document. Its fields are stored once as UTF-8 in a shared byte arena and every
+ * byte trigram of the case-folded text maps to a DocIdSet. A "contains" query is folded the same way,
+ * intersects the postings of its own trigrams and verifies the survivors against the folded text.
+ * Folding is toLowerCase(Locale.ROOT) for both; for all-ASCII documents (the common case) that is a
+ * byte-wise A-Z fold done on the fly, so only documents with other characters are re-folded to verify.
+ *
+ * Updating a trade appends a new document and tombstones the old one, so doc ids stay in update
+ * order and results can be returned newest-first without sorting. Tombstones are compacted away once
+ * they outnumber live documents.
+ */
+public class TradeSearchIndex {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private static final byte FIELD_SEPARATOR = 0x1F;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document store
+    private byte[] arena = new byte[1 << 16];
+    private int arenaSize;
+    private int[] docOffset = new int[1024];
+    private int[] docLength = new int[1024];
+    private long[] docSortKey = new long[1024];
+    private final BitSet deleted = new BitSet();
+    private final BitSet nonAscii = new BitSet();
+    private int docCount;
+    private int liveCount;
+
+    // trade ref -> doc id (open addressing, slots hold docId + 1)
+    private int[] refSlots = new int[2048];
+
+    private Map<Integer, DocIdSet> postings = new HashMap<>();
+
+    public record Hits(List<String> tradeRefs, int total) {}
+
+    /**
+     * Adds or replaces the document for a trade. Ignored if the index already holds a newer version
+     * (sortKey is the latest event time, so replays and late startup loads cannot overwrite fresh data).
+     */
+    public void upsert(String tradeRef, String counterparty, String subject, String status, long sortKey) {
+        lock.writeLock().lock();
+        try {
+            int existing = findDoc(tradeRef);
+            if (existing >= 0) {
+                if (docSortKey[existing] > sortKey) return;
+                deleted.set(existing);
+                liveCount--;
+            }
+
+            int docId = appendDoc(tradeRef, counterparty, subject, status, sortKey);
+            putRef(tradeRef, docId);
+            liveCount++;
+
+            if (docCount > 1024 && docCount - liveCount > liveCount) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive substring search, newest first. Returns null when the query is too short to use
+     * trigrams (callers fall back to the database).
+     */
+    public Hits search(String query, int offset, int limit) {
+        byte[] q = fold(query).getBytes(StandardCharsets.UTF_8);
+        if (q.length < MIN_QUERY_LENGTH) return null;
+
+        lock.readLock().lock();
+        try {
+            DocIdSet[] sets = postingsFor(q);
+            if (sets == null) return new Hits(List.of(), 0);
+
+            // A single trigram cannot straddle a field separator, so it needs no verification
+            boolean verify = q.length > MIN_QUERY_LENGTH;
+
+            List<String> page = new ArrayList<>(Math.min(limit, 1024));
+            int total = 0;
+            DocIdSet smallest = sets[0];
+            for (int doc = smallest.previous(docCount - 1); doc >= 0; doc = smallest.previous(doc - 1)) {
+                if (deleted.get(doc) || !containsAll(sets, doc)) continue;
+                if (verify && !matches(doc, q)) continue;
+
+                if (total >= offset && page.size() < limit) page.add(tradeRefOf(doc));
+                total++;
+            }
+            return new Hits(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = arena.length + (long) docOffset.length * (4 + 4 + 8) + (long) refSlots.length * 4;
+            for (DocIdSet set : postings.values()) bytes += set.memoryBytes() + 48;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Documents ---
+
+    private int appendDoc(String tradeRef, String counterparty, String subject, String status, long sortKey) {
+        byte[] text = (nullToEmpty(tradeRef) + (char) FIELD_SEPARATOR + nullToEmpty(counterparty) + (char) FIELD_SEPARATOR +
+                nullToEmpty(subject) + (char) FIELD_SEPARATOR + nullToEmpty(status)).getBytes(StandardCharsets.UTF_8);
+
+        int docId = docCount++;
+        if (docId == docOffset.length) {
+            int capacity = docOffset.length * 2;
+            docOffset = Arrays.copyOf(docOffset, capacity);
+            docLength = Arrays.copyOf(docLength, capacity);
+            docSortKey = Arrays.copyOf(docSortKey, capacity);
+        }
+        if (arenaSize + text.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + text.length));
+        }
+        System.arraycopy(text, 0, arena, arenaSize, text.length);
+        docOffset[docId] = arenaSize;
+        docLength[docId] = text.length;
+        docSortKey[docId] = sortKey;
+        arenaSize += text.length;
+
+        byte[] folded = text;
+        if (!isAscii(text)) {
+            nonAscii.set(docId);
+            folded = foldedText(docId);
+        }
+        for (int i = 0; i + MIN_QUERY_LENGTH <= folded.length; i++) {
+            postings.computeIfAbsent(gram(folded, i), k -> new DocIdSet()).add(docId);
+        }
+        return docId;
+    }
+
+    private byte[] foldedText(int doc) {
+        return fold(new String(arena, docOffset[doc], docLength[doc], StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String tradeRefOf(int doc) {
+        int start = docOffset[doc];
+        int end = start;
+        while (arena[end] != FIELD_SEPARATOR) end++;
+        return new String(arena, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // Substring check over the folded text: ASCII documents fold on the fly, others are re-folded first
+    private boolean matches(int doc, byte[] q) {
+        if (nonAscii.get(doc)) return indexOf(foldedText(doc), q) >= 0;
+
+        int start = docOffset[doc];
+        int last = start + docLength[doc] - q.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < q.length; j++) {
+                if (lower(arena[i + j]) != q[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void compact() {
+        int[] live = new int[liveCount];
+        int n = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!deleted.get(doc)) live[n++] = doc;
+        }
+
+        byte[] oldArena = arena;
+        int[] oldOffset = docOffset;
+        int[] oldLength = docLength;
+        long[] oldSortKey = docSortKey;
+
+        arena = new byte[Math.max(1 << 16, arenaSize)];
+        arenaSize = 0;
+        docOffset = new int[Math.max(1024, n * 2)];
+        docLength = new int[docOffset.length];
+        docSortKey = new long[docOffset.length];
+        deleted.clear();
+        nonAscii.clear();
+        docCount = 0;
+        refSlots = new int[Math.max(2048, Integer.highestOneBit(Math.max(n, 1)) * 4)];
+        postings = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            int doc = live[i];
+            String[] fields = new String(oldArena, oldOffset[doc], oldLength[doc], StandardCharsets.UTF_8)
+                    .split(String.valueOf((char) FIELD_SEPARATOR), -1);
+            int docId = appendDoc(fields[0], fields[1], fields[2], fields[3], oldSortKey[doc]);
+            putRef(fields[0], docId);
+        }
+    }
+
+    // --- Postings ---
+
+    // Postings for each distinct query trigram, smallest first; null if any trigram is absent
+    private DocIdSet[] postingsFor(byte[] q) {
+        Map<Integer, DocIdSet> distinct = new LinkedHashMap<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= q.length; i++) {
+            int key = gram(q, i);
+            DocIdSet set = postings.get(key);
+            if (set == null) return null;
+            distinct.put(key, set);
+        }
+        DocIdSet[] sets = distinct.values().toArray(new DocIdSet[0]);
+        Arrays.sort(sets, Comparator.comparingInt(DocIdSet::size));
+        return sets;
+    }
+
+    private boolean containsAll(DocIdSet[] sets, int doc) {
+        for (int i = 1; i < sets.length; i++) {
+            if (!sets[i].contains(doc)) return false;
+        }
+        return true;
+    }
+
+    private static int gram(byte[] text, int i) {
+        return (lower(text[i]) & 0xFF) << 16 | (lower(text[i + 1]) & 0xFF) << 8 | (lower(text[i + 2]) & 0xFF);
+    }
+
+    // Same result as fold() for ASCII bytes; UTF-8 lead and continuation bytes pass through unchanged
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    // The one case folding for documents and queries
+    private static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(byte[] text) {
+        for (byte b : text) {
+            if (b < 0) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] text, byte[] q) {
+        outer:
+        for (int i = 0; i <= text.length - q.length; i++) {
+            for (int j = 0; j < q.length; j++) {
+                if (text[i + j] != q[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // --- Trade ref lookup ---
+
+    private int findDoc(String tradeRef) {
+        byte[] ref = tradeRef.getBytes(StandardCharsets.UTF_8);
+        int mask = refSlots.length - 1;
+        for (int slot = tradeRef.hashCode() & mask; refSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int doc = refSlots[slot] - 1;
+            if (refEquals(doc, ref)) return doc;
+        }
+        return -1;
+    }
+
+    private void putRef(String tradeRef, int docId) {
+        if ((long) liveCount * 2 >= refSlots.length) growRefSlots();
+
+        byte[] ref = tradeRef.getBytes(StandardCharsets.UTF_8);
+        int mask = refSlots.length - 1;
+        int slot = tradeRef.hashCode() & mask;
+        while (refSlots[slot] != 0 && !refEquals(refSlots[slot] - 1, ref)) {
+            slot = (slot + 1) & mask;
+        }
+        refSlots[slot] = docId + 1;
+    }
+
+    private void growRefSlots() {
+        int[] old = refSlots;
+        refSlots = new int[old.length * 2];
+        int mask = refSlots.length - 1;
+        for (int entry : old) {
+            if (entry == 0) continue;
+            int slot = tradeRefOf(entry - 1).hashCode() & mask;
+            while (refSlots[slot] != 0) slot = (slot + 1) & mask;
+            refSlots[slot] = entry;
+        }
+    }
+
+    private boolean refEquals(int doc, byte[] ref) {
+        int start = docOffset[doc];
+        if (start + ref.length >= arenaSize) return false;
+        for (int i = 0; i < ref.length; i++) {
+            if (arena[start + i] != ref[i]) return false;
+        }
+        return arena[start + ref.length] == FIELD_SEPARATOR;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.trading.app.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Change feed over the event log in commit_seq order, for downstream consumers tailing new events.
+ * Cursors are opaque to clients: pass nextCursor back as "after". Sharded, a cursor holds one position
+ * per shard (commit_seq is per shard) and every trade's events still come in commit order.
+ */
+public interface ChangeFeedService {
+    // One commit_seq per shard
+    long[] parseCursor(String cursor);
+
+    // Completes once an event after the cursor has committed, or when waitMs runs out (0 = immediately)
+    CompletableFuture<Void> awaitAfter(long[] afterSeq, long waitMs);
+
+    // Streams {"events":[...],"nextCursor":"...","hasMore":...} with up to limit events after the cursor
+    void writeEvents(long[] afterSeq, int limit, OutputStream out) throws IOException;
+}
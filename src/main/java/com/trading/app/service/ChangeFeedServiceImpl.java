@@ -0,0 +1,249 @@
+package com.trading.app.service.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.trading.app.event.TradeEventsCommitted;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.service.ChangeFeedService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.*;
+
+/**
+ * GET /api/events: keyset pages over idx_trading_event_commit_seq, streamed straight from the JDBC cursor.
+ *
+ * commit_seq is handed out under a row lock held until commit (see TradeRepository.stampCommitSeq),
+ * so a consumer that has read up to N can never later find a committed event below N.
+ *
+ * Long-polls wait on local commits (TradeEventsCommitted) rather than re-querying; a poll that times out
+ * simply returns an empty page with the same cursor.
+ *
+ * Sharded, every shard has its own commit_seq and the cursor is their vector ("12.40.7"; a plain number is
+ * shard 0's position). Each shard's page is read in commit order and the pages are merged by event time,
+ * so a trade's events keep their order and one busy shard cannot starve the others.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private static final String PAGE_SQL =
+            "SELECT event_id, event_type, subject, source_system, trading_date, event_time, data, " +
+            "trade_ref, counterparty, notional_amount, status, commit_seq " +
+            "FROM trading_pipeline_tracker WHERE commit_seq > ? ORDER BY commit_seq LIMIT ?";
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Merges shard pages; each shard's own commit order wins over this (see KWayMerge)
+    private static final Comparator<ShardEvent> EVENT_TIME = Comparator.comparing(e -> e.event().getEventTime(),
+            Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()));
+
+    @Value("${app.events.max-limit:5000}")
+    private int maxLimit;
+
+    @Value("${app.events.max-wait-ms:20000}")
+    private long maxWaitMs;
+
+    @Value("${app.events.max-waiters:1000}")
+    private int maxWaiters;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService timer;
+    private ObjectWriter eventWriter;
+
+    private Timer pageTimer;
+    private DistributionSummary pageRows;
+
+    private record Waiter(long[] afterSeq, CompletableFuture<Void> ready) {}
+
+    private record ShardEvent(int shard, TradeEvent event) {}
+
+    @PostConstruct
+    void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        // The stream is flushed once per page, not once per event
+        eventWriter = objectMapper.writerFor(TradeEvent.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        pageTimer = Timer.builder("trade.events.page")
+                .description("Change feed pages, query to last byte written")
+                .register(meterRegistry);
+        pageRows = DistributionSummary.builder("trade.events.rows")
+                .description("Events returned per change feed page")
+                .register(meterRegistry);
+        Gauge.builder("trade.events.waiters", waiters, Set::size)
+                .description("Long-polls waiting for new events")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+        waiters.forEach(this::release);
+    }
+
+    @Override
+    public long[] parseCursor(String cursor) {
+        // Shards added since the cursor was issued start from the beginning
+        long[] seqs = new long[shardRouter.count()];
+        if (cursor == null || cursor.isBlank()) return seqs;
+        String[] parts = cursor.trim().split("\\.", -1);
+        if (parts.length > seqs.length) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        try {
+            for (int shard = 0; shard < parts.length; shard++) {
+                seqs[shard] = Long.parseLong(parts[shard]);
+                if (seqs[shard] < 0) throw new NumberFormatException();
+            }
+            return seqs;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> awaitAfter(long[] afterSeq, long waitMs) {
+        if (waitMs <= 0 || waiters.size() >= maxWaiters) return CompletableFuture.completedFuture(null);
+
+        // Register before checking, so a commit landing in between still wakes this waiter
+        Waiter waiter = new Waiter(afterSeq, new CompletableFuture<>());
+        waiters.add(waiter);
+        if (isAhead(lastCommittedSeqs(), afterSeq)) {
+            release(waiter);
+        } else {
+            timer.schedule(() -> release(waiter), Math.min(waitMs, maxWaitMs), TimeUnit.MILLISECONDS);
+        }
+        return waiter.ready();
+    }
+
+    @Override
+    // Postgres only honours the fetch size (server-side cursor) inside a transaction. Not read-only, which would
+    // allow the replica: a consumer woken by a commit must find it
+    @Transactional
+    public void writeEvents(long[] afterSeq, int limit, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        long[] last = afterSeq.clone();
+        int[] rows = {0};
+        boolean[] hasMore = {false};
+
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("events");
+
+        // One extra row tells whether the consumer should come straight back
+        shardRouter.<ShardEvent>scatterMerged(EVENT_TIME, (shard, shardRows) -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(PAGE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Math.min(pageSize + 1, FETCH_SIZE));
+            ps.setLong(1, afterSeq[shard]);
+            ps.setInt(2, pageSize + 1);
+            return ps;
+        }, rs -> {
+            shardRows.accept(new ShardEvent(shard, mapEvent(rs)));
+        }), pageSize + 1, row -> {
+            if (rows[0] == pageSize) {
+                hasMore[0] = true;
+                return;
+            }
+            try {
+                eventWriter.writeValue(gen, row.event());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            last[row.shard()] = row.event().getCommitSeq();
+            rows[0]++;
+        });
+
+        gen.writeEndArray();
+        gen.writeStringField("nextCursor", formatCursor(last));
+        gen.writeBooleanField("hasMore", hasMore[0]);
+        gen.writeEndObject();
+        gen.flush();
+
+        pageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        pageRows.record(rows[0]);
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        if (waiters.isEmpty()) return;
+        long[] newest = new long[shardRouter.count()];
+        Arrays.fill(newest, -1);
+        for (TradeEvent event : committed.events()) {
+            if (event.getCommitSeq() == null) continue;
+            int shard = shardRouter.shardOf(event.getTradeRef());
+            newest[shard] = Math.max(newest[shard], event.getCommitSeq());
+        }
+        for (Waiter waiter : waiters) {
+            if (isAhead(newest, waiter.afterSeq())) release(waiter);
+        }
+    }
+
+    // --- Helpers ---
+
+    private long[] lastCommittedSeqs() {
+        return shardRouter.scatter(shard -> {
+            Long seq = jdbcTemplate.queryForObject("SELECT last_seq FROM event_log_sequence WHERE id = 1", Long.class);
+            return seq == null ? 0 : seq;
+        }).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static boolean isAhead(long[] seqs, long[] cursor) {
+        for (int shard = 0; shard < seqs.length; shard++) {
+            if (seqs[shard] > cursor[shard]) return true;
+        }
+        return false;
+    }
+
+    private static String formatCursor(long[] seqs) {
+        return seqs.length == 1 ? String.valueOf(seqs[0])
+                : Arrays.stream(seqs).mapToObj(String::valueOf).collect(Collectors.joining("."));
+    }
+
+    private void release(Waiter waiter) {
+        if (waiters.remove(waiter)) waiter.ready().complete(null);
+    }
+
+    private TradeEvent mapEvent(ResultSet rs) throws SQLException {
+        TradeEvent event = new TradeEvent(rs.getString("event_id"), rs.getString("event_type"), rs.getString("subject"),
+                rs.getString("source_system"), rs.getObject("trading_date", LocalDate.class),
+                rs.getObject("event_time", LocalDateTime.class), rs.getString("data"),
+                rs.getString("trade_ref"), rs.getString("counterparty"),
+                rs.getObject("notional_amount") == null ? null : rs.getDouble("notional_amount"), rs.getString("status"));
+        event.setCommitSeq(rs.getLong("commit_seq"));
+        return event;
+    }
+}
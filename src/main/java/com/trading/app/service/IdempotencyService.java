@@ -0,0 +1,19 @@
+package com.trading.app.service;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency-Key bookkeeping: which event the first request carrying a key produced.
+ */
+public interface IdempotencyService {
+    // Event id recorded for this key by a committed request, if any
+    Optional<String> find(String key);
+
+    // Records key -> eventId in the caller's transaction. Returns the event id that owns the key:
+    // eventId itself, or the original when another request already committed it.
+    String claim(String key, String eventId);
+
+    // Batch form for group commits (event id -> key). Returns event id -> original event id for keys already taken.
+    Map<String, String> claimAll(Map<String, String> keysByEventId);
+}
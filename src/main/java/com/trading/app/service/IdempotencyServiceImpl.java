@@ -0,0 +1,262 @@
+package com.trading.app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trading.app.cache.BloomFilter;
+import com.trading.app.service.IdempotencyService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Idempotency keys live in the idempotency_keys table (unique key, claimed in the event's transaction),
+ * so they survive restarts. Two in-memory layers keep the common "new key" case off the database:
+ *
+ * - a bounded cache of recently committed key -> event id, which answers most retries directly;
+ * - a Bloom filter over every key in the table. A key it has never seen cannot be stored, so the
+ *   lookup is skipped. It is loaded in the background at startup; until then every miss hits the table.
+ *
+ * Bloom filters cannot forget, so two generations are kept and rotated once per TTL.
+ * The table stays authoritative: a stale or false-positive answer only costs one SELECT.
+ *
+ * Sharded, a key is stored on the shard of the trade its write went to, so lookups ask every shard.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String FIND_SQL = "SELECT event_id FROM idempotency_keys WHERE idempotency_key = ?";
+
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys (idempotency_key, event_id, created_at) " +
+            "VALUES (?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING";
+
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    // Sizes each Bloom generation: keys expected per TTL window
+    @Value("${app.idempotency.expected-keys:1000000}")
+    private long expectedKeys;
+
+    @Value("${app.idempotency.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.idempotency.recent-keys:100000}")
+    private long recentKeys;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private Cache<String, String> recent;
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile LocalDateTime currentSince;
+    private volatile boolean filterReady;
+
+    private Counter recentHits;
+    private Counter filterSkips;
+    private Counter storedHits;
+    private Counter storedMisses;
+
+    @PostConstruct
+    void init() {
+        recent = Caffeine.newBuilder()
+                .maximumSize(recentKeys)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        current = new BloomFilter(expectedKeys, falsePositiveRate);
+        currentSince = LocalDateTime.now();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "trade.idempotency.recent");
+        recentHits = lookupCounter("recent");
+        filterSkips = lookupCounter("filtered");
+        storedHits = lookupCounter("stored");
+        storedMisses = lookupCounter("absent");
+    }
+
+    @Override
+    public Optional<String> find(String key) {
+        checkKey(key);
+
+        String eventId = recent.getIfPresent(key);
+        if (eventId != null) {
+            recentHits.increment();
+            return Optional.of(eventId);
+        }
+        if (filterReady && !mightBeStored(key)) {
+            filterSkips.increment();
+            return Optional.empty();
+        }
+
+        Optional<String> stored = shardRouter.scatter(shard -> jdbcTemplate.query(FIND_SQL,
+                        rs -> rs.next() ? Optional.of(rs.getString(1)) : Optional.<String>empty(), key))
+                .stream().flatMap(Optional::stream).findFirst();
+        (stored.isPresent() ? storedHits : storedMisses).increment();
+        stored.ifPresent(id -> recent.put(key, id));
+        return stored;
+    }
+
+    @Override
+    public String claim(String key, String eventId) {
+        checkKey(key);
+        // A concurrent claim of the same key blocks here until the other transaction ends
+        int inserted = jdbcTemplate.update(CLAIM_SQL, key, eventId, Timestamp.valueOf(LocalDateTime.now()));
+        if (inserted == 1) {
+            remember(Map.of(key, eventId));
+            return eventId;
+        }
+        return storedEventId(key);
+    }
+
+    @Override
+    public Map<String, String> claimAll(Map<String, String> keysByEventId) {
+        if (keysByEventId.isEmpty()) return Map.of();
+        keysByEventId.values().forEach(this::checkKey);
+
+        // The first event per key wins inside the batch; later ones are duplicates of it
+        Map<String, String> eventIdsByKey = new LinkedHashMap<>();
+        Map<String, String> duplicates = new HashMap<>();
+        keysByEventId.forEach((eventId, key) -> {
+            String first = eventIdsByKey.putIfAbsent(key, eventId);
+            if (first != null) duplicates.put(eventId, first);
+        });
+
+        // One multi-row INSERT ... RETURNING (batched inserts are rewritten by the driver and lose their row counts)
+        String values = String.join(", ", Collections.nCopies(eventIdsByKey.size(), "(?, ?, ?)"));
+        List<Object> args = new ArrayList<>(eventIdsByKey.size() * 3);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        eventIdsByKey.forEach((key, eventId) -> {
+            args.add(key);
+            args.add(eventId);
+            args.add(now);
+        });
+        Set<String> claimed = new HashSet<>(jdbcTemplate.queryForList(
+                "INSERT INTO idempotency_keys (idempotency_key, event_id, created_at) VALUES " + values +
+                        " ON CONFLICT (idempotency_key) DO NOTHING RETURNING idempotency_key",
+                String.class, args.toArray()));
+
+        Map<String, String> remembered = new HashMap<>();
+        eventIdsByKey.forEach((key, eventId) -> {
+            if (claimed.contains(key)) remembered.put(key, eventId);
+            else duplicates.put(eventId, storedEventId(key));
+        });
+        remember(remembered);
+        return duplicates;
+    }
+
+    // Loaded after startup so a large key table does not delay readiness
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFilter() {
+        Thread loader = new Thread(() -> {
+            long start = System.nanoTime();
+            BloomFilter filter = current;
+            try {
+                // Inside a transaction so the driver streams with the fetch size instead of buffering every key
+                shardRouter.scatter(shard -> transactionTemplate.execute(status -> {
+                    jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement("SELECT idempotency_key FROM idempotency_keys WHERE created_at >= ?",
+                                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+                        ps.setFetchSize(5000);
+                        return ps;
+                    }, rs -> {
+                        filter.add(rs.getString(1));
+                    });
+                    return null;
+                }));
+                filterReady = true;
+                logger.info("Idempotency filter loaded: {} keys, {} KB in {} ms", filter.insertions(),
+                        filter.memoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                logger.error("Idempotency filter load failed; every lookup will query the table", e);
+            }
+        }, "idempotency-filter-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(ttl));
+        int purged = shardRouter.onEach(shard -> jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", cutoff))
+                .stream().mapToInt(Integer::intValue).sum();
+
+        // The previous generation only holds keys older than one TTL, which are gone from the table now
+        if (currentSince.plus(ttl).isBefore(LocalDateTime.now())) {
+            previous = current;
+            current = new BloomFilter(expectedKeys, falsePositiveRate);
+            currentSince = LocalDateTime.now();
+        }
+        if (purged > 0) logger.info("Purged {} expired idempotency keys", purged);
+    }
+
+    // --- Helpers ---
+
+    private boolean mightBeStored(String key) {
+        BloomFilter older = previous;
+        return current.mightContain(key) || (older != null && older.mightContain(key));
+    }
+
+    // Into the filter now (a premature "maybe" only costs a SELECT), into the recent cache once committed
+    private void remember(Map<String, String> eventIdsByKey) {
+        eventIdsByKey.keySet().forEach(current::add);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recent.putAll(eventIdsByKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.putAll(eventIdsByKey);
+            }
+        });
+    }
+
+    private String storedEventId(String key) {
+        String eventId = jdbcTemplate.query(FIND_SQL, rs -> rs.next() ? rs.getString(1) : null, key);
+        if (eventId == null) throw new IllegalStateException("Idempotency key vanished while claiming it: " + key);
+        recent.put(key, eventId);
+        return eventId;
+    }
+
+    private void checkKey(String key) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("trade.idempotency.lookups")
+                .description("Idempotency key lookups by where they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
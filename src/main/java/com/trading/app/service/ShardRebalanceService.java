@@ -0,0 +1,15 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.ShardInfo;
+import com.trading.app.dto.ShardRebalanceResult;
+
+import java.util.List;
+
+/**
+ * Moves trades to the shard their trade ref hashes to, after app.shards.urls gained databases.
+ * Meant to run before write traffic resumes: until it has moved a trade, the new shard does not know it.
+ */
+public interface ShardRebalanceService {
+    List<ShardInfo> listShards();
+    ShardRebalanceResult rebalance();
+}
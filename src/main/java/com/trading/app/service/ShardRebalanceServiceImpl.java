@@ -0,0 +1,188 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.dto.ShardInfo;
+import com.trading.app.dto.ShardRebalanceResult;
+import com.trading.app.partition.EventPartitions;
+import com.trading.app.service.ShardRebalanceService;
+import com.trading.app.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Rebalances the sharded event store after databases were added to app.shards.urls.
+ *
+ * Jump hashing only ever moves trades onto the new shards, so each shard is walked in trade_ref batches
+ * and every trade whose ref now hashes elsewhere is moved: its events (given fresh commit_seq values on
+ * the target, in their original order), its trade_state row as is (history already archived stays behind,
+ * so the row is not rebuilt from events) and its idempotency keys. The target commits before the source
+ * deletes, and every insert ignores rows already there, so a run that died half way is simply run again.
+ *
+ * Moved events reach change feed consumers a second time, under the target shard's cursor position.
+ * Removing shards is not supported: their trades would have nowhere to hash to.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShardRebalanceServiceImpl implements ShardRebalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalanceServiceImpl.class);
+
+    private static final String STATE_COLUMNS =
+            "trade_ref, status, subject, source_system, counterparty, notional, trading_date, first_trading_date, " +
+            "latest_event_id, latest_event_type, latest_event_time, event_count";
+
+    private static final String REFS_SQL = "SELECT trade_ref FROM trade_state WHERE trade_ref > ? ORDER BY trade_ref LIMIT ?";
+
+    private static final String EVENTS_SQL = "SELECT " + EventPartitions.COLUMNS +
+            " FROM trading_pipeline_tracker WHERE trade_ref = ANY(?) ORDER BY commit_seq";
+
+    private static final String STATES_SQL = "SELECT " + STATE_COLUMNS + " FROM trade_state WHERE trade_ref = ANY(?)";
+
+    private static final String KEYS_SQL =
+            "SELECT idempotency_key, event_id, created_at FROM idempotency_keys WHERE event_id = ANY(?)";
+
+    private static final String INSERT_EVENT_SQL = "INSERT INTO trading_pipeline_tracker (" + EventPartitions.COLUMNS +
+            ", commit_seq) VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_STATE_SQL = "INSERT INTO trade_state (" + STATE_COLUMNS +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (trade_ref) DO NOTHING";
+
+    private static final String INSERT_KEY_SQL = "INSERT INTO idempotency_keys (idempotency_key, event_id, created_at) " +
+            "VALUES (?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING";
+
+    private static final int EVENT_COLUMNS = 11;
+    private static final int STATE_COLUMN_COUNT = 12;
+
+    @Value("${app.shards.rebalance.batch-size:500}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    private record Moved(long trades, long events, long keys) {}
+
+    @Override
+    public List<ShardInfo> listShards() {
+        return shardRouter.scatter(shard -> {
+            long[] counts = new long[3];
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT trade_ref, event_count FROM trade_state",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(5000);
+                return ps;
+            }, rs -> {
+                counts[0]++;
+                counts[1] += rs.getLong(2);
+                if (shardRouter.shardOf(rs.getString(1)) != shard) counts[2]++;
+            });
+            return new ShardInfo(shard, counts[0], counts[1], counts[2]);
+        });
+    }
+
+    @Override
+    public synchronized ShardRebalanceResult rebalance() {
+        long start = System.nanoTime();
+        long scanned = 0;
+        long trades = 0;
+        long events = 0;
+        long keys = 0;
+
+        for (int source = 0; source < shardRouter.count(); source++) {
+            int shard = source;
+            String after = "";
+            while (true) {
+                String from = after;
+                List<String> refs = shardRouter.read(shard,
+                        () -> jdbcTemplate.queryForList(REFS_SQL, String.class, from, batchSize));
+                if (refs.isEmpty()) break;
+                scanned += refs.size();
+                after = refs.get(refs.size() - 1);
+
+                SortedMap<Integer, List<String>> byShard = shardRouter.byShard(refs, ref -> ref);
+                byShard.remove(shard);
+                for (Map.Entry<Integer, List<String>> target : byShard.entrySet()) {
+                    Moved moved = move(shard, target.getKey(), target.getValue());
+                    trades += moved.trades();
+                    events += moved.events();
+                    keys += moved.keys();
+                }
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Shard rebalance over {} shards: {} trades scanned, {} trades / {} events / {} keys moved in {} ms",
+                shardRouter.count(), scanned, trades, events, keys, elapsedMs);
+        return new ShardRebalanceResult(shardRouter.count(), scanned, trades, events, keys, elapsedMs);
+    }
+
+    // --- Helpers ---
+
+    private Moved move(int source, int target, List<String> tradeRefs) {
+        List<Object[]> events = new ArrayList<>();
+        List<Object[]> states = new ArrayList<>();
+        List<Object[]> keys = new ArrayList<>();
+        shardRouter.read(source, () -> {
+            jdbcTemplate.query(EVENTS_SQL, refs(tradeRefs), rs -> {
+                events.add(row(rs, EVENT_COLUMNS + 1));
+            });
+            jdbcTemplate.query(STATES_SQL, refs(tradeRefs), rs -> {
+                states.add(row(rs, STATE_COLUMN_COUNT));
+            });
+            String[] eventIds = events.stream().map(e -> (String) e[0]).toArray(String[]::new);
+            jdbcTemplate.query(KEYS_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", eventIds)), rs -> {
+                keys.add(row(rs, 3));
+            });
+            return null;
+        });
+
+        shardRouter.write(target, () -> {
+            // Appended to the target's log in their original order
+            if (!events.isEmpty()) {
+                long last = jdbcTemplate.queryForObject(
+                        "UPDATE event_log_sequence SET last_seq = last_seq + ? WHERE id = 1 RETURNING last_seq",
+                        Long.class, events.size());
+                long seq = last - events.size();
+                for (Object[] event : events) event[EVENT_COLUMNS] = ++seq;
+                jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, events);
+            }
+            jdbcTemplate.batchUpdate(INSERT_STATE_SQL, states);
+            if (!keys.isEmpty()) jdbcTemplate.batchUpdate(INSERT_KEY_SQL, keys);
+            return null;
+        });
+
+        shardRouter.write(source, () -> {
+            String[] eventIds = events.stream().map(e -> (String) e[0]).toArray(String[]::new);
+            if (!keys.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE event_id = ANY(?)",
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", eventIds)));
+            }
+            jdbcTemplate.update("DELETE FROM trading_pipeline_tracker WHERE trade_ref = ANY(?)", refs(tradeRefs));
+            jdbcTemplate.update("DELETE FROM trade_state WHERE trade_ref = ANY(?)", refs(tradeRefs));
+            return null;
+        });
+        return new Moved(states.size(), events.size(), keys.size());
+    }
+
+    private static PreparedStatementSetter refs(List<String> tradeRefs) {
+        return ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", tradeRefs.toArray()));
+    }
+
+    // The first columns of the current row; jsonb comes back as text and is cast again on insert
+    private static Object[] row(ResultSet rs, int width) throws SQLException {
+        Object[] row = new Object[width];
+        int columns = rs.getMetaData().getColumnCount();
+        for (int i = 0; i < columns; i++) {
+            row[i] = "jsonb".equals(rs.getMetaData().getColumnTypeName(i + 1)) ? rs.getString(i + 1) : rs.getObject(i + 1);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,14 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.ExposureFilter;
+import com.trading.app.dto.ExposureReport;
+
+import java.util.List;
+
+public interface TradeAnalyticsService {
+    // groupBy: any of counterparty, subject, status, tradingDate (empty = grand total only)
+    ExposureReport getExposure(List<String> groupBy, ExposureFilter filter);
+
+    // Reloads the accumulators from trade_state (after a projection rebuild)
+    void rebuild();
+}
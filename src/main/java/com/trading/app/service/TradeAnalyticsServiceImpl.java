@@ -0,0 +1,286 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.analytics.ExposureCube;
+import com.trading.app.dto.ExposureFilter;
+import com.trading.app.dto.ExposureReport;
+import com.trading.app.dto.ExposureRow;
+import com.trading.app.event.TradeEventsCommitted;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+import com.trading.app.service.TradeAnalyticsService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * GET /api/trades/analytics: notional and trade counts from in-memory accumulators (ExposureCube).
+ *
+ * Each commit moves its trades from the cell they were in (TradeEventsCommitted.priorStates) to the cell
+ * they are in now. A rebuild loads the cube from one aggregate over trade_state that also reads the
+ * commit_seq it reflects; commits arriving meanwhile are held back and only those past that seq are
+ * replayed onto the new cube, so nothing is counted twice or missed. Sharded, every shard loads in parallel
+ * and the seqs are compared per shard. A commit the cube cannot take (a dimension out of ids) drops the cube
+ * rather than applying part of it, and reports go back to the database until the next rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+public class TradeAnalyticsServiceImpl implements TradeAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeAnalyticsServiceImpl.class);
+
+    private static final List<String> DIMENSIONS = List.of("counterparty", "subject", "status", "tradingDate");
+
+    // One statement, so the totals and the sequence come from the same database snapshot
+    private static final String LOAD_SQL =
+            "SELECT s.last_seq, g.counterparty, g.subject, g.status, g.trading_date, g.trades, g.notional " +
+            "FROM event_log_sequence s LEFT JOIN (" +
+            "SELECT counterparty, subject, status, trading_date, COUNT(*) AS trades, COALESCE(SUM(notional), 0) AS notional " +
+            "FROM trade_state GROUP BY counterparty, subject, status, trading_date) g ON TRUE " +
+            "WHERE s.id = 1";
+
+    @Value("${app.analytics.enabled:true}")
+    private boolean enabled;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ExposureCube cube;
+    private boolean loading = true;                          // guarded by lock
+    private final List<Move> heldBack = new ArrayList<>();   // guarded by lock + its own monitor
+
+    private Timer queryTimer;
+
+    private record Move(int shard, long seq, TradeState before, TradeState after) {}
+
+    @PostConstruct
+    void registerMeters() {
+        queryTimer = Timer.builder("trade.analytics.query")
+                .description("Exposure report computation")
+                .register(meterRegistry);
+        Gauge.builder("trade.analytics.cells", this, s -> {
+                    ExposureCube current = s.cube;
+                    return current == null ? 0 : current.cellCount();
+                })
+                .description("Populated counterparty/subject/status/date cells")
+                .register(meterRegistry);
+    }
+
+    // Until the first load finishes, reports are aggregated by the database instead
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+
+        Thread loader = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.error("Exposure analytics load failed; reports stay on the database", e);
+            }
+        }, "trade-analytics-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ExposureCube fresh = new ExposureCube();
+        long[] seq;
+        try {
+            seq = loadInto(fresh);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                // Keep serving the previous cube (if any) and stop holding commits back
+                if (cube != null && !applyAll(cube, heldBack)) cube = null;
+                heldBack.clear();
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        List<Move> replay = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Move move : heldBack) {
+                if (move.seq() > seq[move.shard()]) replay.add(move);
+            }
+            heldBack.clear();
+            cube = applyAll(fresh, replay) ? fresh : null;
+            loading = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Exposure analytics loaded: {} cells at seq {}, {} commits replayed in {} ms",
+                fresh.cellCount(), Arrays.toString(seq), replay.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        if (!enabled) return;
+
+        // Fold the group in commit order so several events for one trade chain correctly
+        Map<String, TradeState> states = new HashMap<>(committed.priorStates());
+        List<Move> moves = new ArrayList<>(committed.events().size());
+        for (TradeEvent event : committed.events()) {
+            TradeState before = states.get(event.getTradeRef());
+            TradeState after = TradeState.apply(before, event);
+            states.put(event.getTradeRef(), after);
+            long seq = event.getCommitSeq() == null ? Long.MAX_VALUE : event.getCommitSeq();
+            moves.add(new Move(shardRouter.shardOf(event.getTradeRef()), seq, before, after));
+        }
+
+        lock.readLock().lock();
+        try {
+            if (loading) {
+                synchronized (heldBack) {
+                    heldBack.addAll(moves);
+                }
+                return;
+            }
+            ExposureCube current = cube;
+            if (current == null) return;
+            if (!applyAll(current, moves)) cube = null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ExposureReport getExposure(List<String> groupBy, ExposureFilter filter) {
+        List<String> dimensions = parseGroupBy(groupBy);
+        long start = System.nanoTime();
+
+        ExposureCube current = cube;
+        String source = "memory";
+        if (current == null) {
+            current = new ExposureCube();
+            loadInto(current);
+            source = "database";
+        }
+
+        boolean byCounterparty = dimensions.contains("counterparty");
+        boolean bySubject = dimensions.contains("subject");
+        boolean byStatus = dimensions.contains("status");
+        boolean byDate = dimensions.contains("tradingDate");
+
+        Map<List<Object>, ExposureRow> groups = new HashMap<>();
+        current.forEach((counterparty, subject, status, tradingDate, trades, notional) -> {
+            if (!matches(filter, counterparty, subject, status, tradingDate)) return;
+            ExposureRow row = groups.computeIfAbsent(Arrays.asList(
+                            byCounterparty ? counterparty : null, bySubject ? subject : null,
+                            byStatus ? status : null, byDate ? tradingDate : null),
+                    k -> new ExposureRow((String) k.get(0), (String) k.get(1), (String) k.get(2), (LocalDate) k.get(3), 0, 0));
+            row.setTrades(row.getTrades() + trades);
+            row.setNotional(row.getNotional() + notional);
+        });
+
+        List<ExposureRow> rows = new ArrayList<>(groups.values());
+        rows.sort(Comparator.comparingDouble(ExposureRow::getNotional).reversed()
+                .thenComparing(ExposureRow::getTrades, Comparator.reverseOrder()));
+        long trades = 0;
+        double notional = 0;
+        for (ExposureRow row : rows) {
+            trades += row.getTrades();
+            notional += row.getNotional();
+        }
+        if (dimensions.isEmpty()) rows = List.of();
+
+        queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new ExposureReport(dimensions, rows, trades, notional, source);
+    }
+
+    // The commit_seq each shard's totals reflect
+    private long[] loadInto(ExposureCube target) {
+        return shardRouter.scatter(shard -> {
+            long[] seq = {0};
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                seq[0] = rs.getLong("last_seq");
+                long trades = rs.getLong("trades");
+                if (trades == 0) return;
+                target.add(rs.getString("counterparty"), rs.getString("subject"), rs.getString("status"),
+                        rs.getObject("trading_date", LocalDate.class), trades, rs.getDouble("notional"));
+            });
+            return seq[0];
+        }).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // False once the cube cannot take a value (out of dimension ids or dates); it then no longer matches
+    // the book and must be dropped, so reports go back to the database aggregate
+    private boolean applyAll(ExposureCube target, List<Move> moves) {
+        try {
+            for (Move move : moves) apply(target, move);
+            return true;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.warn("Exposure analytics cube dropped, reports stay on the database: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Both keys are resolved first: a value the cube cannot take fails the move before either cell changes
+    private void apply(ExposureCube target, Move move) {
+        TradeState before = move.before();
+        TradeState after = move.after();
+        long from = before == null ? 0 : target.key(before.getCounterparty(), before.getSubject(), before.getStatus(),
+                before.getTradingDate());
+        long to = target.key(after.getCounterparty(), after.getSubject(), after.getStatus(), after.getTradingDate());
+        if (before != null) target.add(from, -1, -notionalOf(before));
+        target.add(to, 1, notionalOf(after));
+    }
+
+    private List<String> parseGroupBy(List<String> groupBy) {
+        if (groupBy == null) return DIMENSIONS;
+        List<String> dimensions = new ArrayList<>();
+        for (String value : groupBy) {
+            if (value == null || value.isBlank()) continue;
+            String dimension = value.trim();
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException("Unknown groupBy dimension: " + dimension + " (expected one of " + DIMENSIONS + ")");
+            }
+            if (!dimensions.contains(dimension)) dimensions.add(dimension);
+        }
+        return dimensions;
+    }
+
+    private static boolean matches(ExposureFilter filter, String counterparty, String subject, String status, LocalDate tradingDate) {
+        if (filter == null) return true;
+        if (filter.getCounterparty() != null && !filter.getCounterparty().equals(counterparty)) return false;
+        if (filter.getSubject() != null && !filter.getSubject().equals(subject)) return false;
+        if (filter.getStatus() != null && !filter.getStatus().equals(status)) return false;
+        if (filter.getFromDate() != null && (tradingDate == null || tradingDate.isBefore(filter.getFromDate()))) return false;
+        return filter.getToDate() == null || (tradingDate != null && !tradingDate.isAfter(filter.getToDate()));
+    }
+
+    private static double notionalOf(TradeState state) {
+        return state.getNotional() == null ? 0 : state.getNotional();
+    }
+}
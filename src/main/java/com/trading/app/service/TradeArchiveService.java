@@ -0,0 +1,15 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.EventPartition;
+import com.trading.app.dto.PartitionMaintenanceResult;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface TradeArchiveService {
+    List<EventPartition> listPartitions();
+    // Creates upcoming monthly partitions and archives the ones past retention
+    PartitionMaintenanceResult maintainPartitions();
+    // Re-attaches the month on every shard that archived it
+    List<EventPartition> restore(YearMonth month);
+}
@@ -0,0 +1,291 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.dto.EventPartition;
+import com.trading.app.dto.PartitionMaintenanceResult;
+import com.trading.app.partition.EventPartitions;
+import com.trading.app.service.TradeArchiveService;
+import com.trading.app.shard.ShardContext;
+import com.trading.app.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly trading_date partitions of the event log in shape:
+ *
+ * - creates partitions a few months ahead (on startup and on schedule), so inserts never land in the default partition;
+ * - archives partitions older than the retention window: binary COPY to a gzip file, then detach and drop;
+ * - restores an archived month on demand by re-creating the partition and copying the file back in.
+ *
+ * Trades whose history was archived stay on the blotter through trade_state (latest event only).
+ * Does nothing when the event log is not partitioned (e.g. CockroachDB, see V9).
+ *
+ * Sharded, every shard is maintained in turn with its own event_archive table and archive.dir/shard-N.
+ */
+@Service
+@RequiredArgsConstructor
+public class TradeArchiveServiceImpl implements TradeArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeArchiveServiceImpl.class);
+
+    private static final String ATTACHED_SQL =
+            "SELECT c.relname, GREATEST(c.reltuples, 0)::BIGINT FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ?";
+
+    private static final String RECORD_ARCHIVE_SQL =
+            "INSERT INTO event_archive (partition_name, range_start, range_end, file_path, row_count, archived_at, restored_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NULL) " +
+            "ON CONFLICT (partition_name) DO UPDATE SET file_path = EXCLUDED.file_path, row_count = EXCLUDED.row_count, " +
+            "archived_at = EXCLUDED.archived_at, restored_at = NULL";
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.dir:./archive}")
+    private Path archiveDir;
+
+    // Months of event history kept attached, counting the current month
+    @Value("${app.archive.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${app.archive.months-ahead:3}")
+    private int monthsAhead;
+
+    // A restored month is left attached this long before maintenance archives it again
+    @Value("${app.archive.restore-ttl-days:7}")
+    private int restoreTtlDays;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    private Boolean partitioned;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createUpcomingOnStartup() {
+        // Cloud Run scales to zero, so the cron below may not fire for a while
+        if (enabled && isPartitioned()) shardRouter.onEach(shard -> createUpcomingPartitions());
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void scheduledMaintenance() {
+        if (enabled) maintainPartitions();
+    }
+
+    @Override
+    public List<EventPartition> listPartitions() {
+        if (!isPartitioned()) return List.of();
+        return shardRouter.onEach(this::listShardPartitions).stream().flatMap(List::stream).toList();
+    }
+
+    private List<EventPartition> listShardPartitions(int shard) {
+        Map<String, Map<String, Object>> archives = new HashMap<>();
+        jdbcTemplate.queryForList("SELECT * FROM event_archive")
+                .forEach(row -> archives.put((String) row.get("partition_name"), row));
+
+        Map<String, EventPartition> result = new TreeMap<>(Comparator.reverseOrder());
+        jdbcTemplate.query(ATTACHED_SQL, rs -> {
+            String name = rs.getString(1);
+            Map<String, Object> archive = archives.get(name);
+            String status = archive != null && archive.get("restored_at") != null ? "RESTORED" : "ATTACHED";
+            result.put(name, new EventPartition(name, monthLabel(name), status, rs.getLong(2),
+                    archive != null ? (String) archive.get("file_path") : null, shard));
+        }, EventPartitions.PARENT);
+
+        archives.forEach((name, row) -> result.computeIfAbsent(name, n -> new EventPartition(n, monthLabel(n), "ARCHIVED",
+                ((Number) row.get("row_count")).longValue(), (String) row.get("file_path"), shard)));
+        return new ArrayList<>(result.values());
+    }
+
+    @Override
+    public PartitionMaintenanceResult maintainPartitions() {
+        if (!isPartitioned()) return new PartitionMaintenanceResult(List.of(), List.of());
+
+        List<String> created = new ArrayList<>();
+        List<String> archived = new ArrayList<>();
+        shardRouter.onEach(shard -> {
+            maintainShard(created, archived);
+            return null;
+        });
+        return new PartitionMaintenanceResult(created, archived);
+    }
+
+    private void maintainShard(List<String> created, List<String> archived) {
+        createUpcomingPartitions().forEach(name -> created.add(label(name)));
+
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths - 1L);
+        LocalDateTime restoredCutoff = LocalDateTime.now().minusDays(restoreTtlDays);
+        Map<String, LocalDateTime> restored = new HashMap<>();
+        jdbcTemplate.query("SELECT partition_name, restored_at FROM event_archive WHERE restored_at IS NOT NULL",
+                rs -> { restored.put(rs.getString(1), rs.getTimestamp(2).toLocalDateTime()); });
+
+        for (String name : attachedPartitionNames()) {
+            Optional<YearMonth> month = EventPartitions.monthOf(name);
+            if (month.isEmpty() || !month.get().isBefore(oldestKept)) continue;
+            LocalDateTime restoredAt = restored.get(name);
+            if (restoredAt != null && restoredAt.isAfter(restoredCutoff)) continue;
+
+            try {
+                archive(name, month.get());
+                archived.add(label(name));
+            } catch (IOException | RuntimeException e) {
+                // Leave the partition attached; the next run retries
+                logger.error("Archiving partition {} failed", label(name), e);
+            }
+        }
+    }
+
+    @Override
+    public List<EventPartition> restore(YearMonth month) {
+        if (!isPartitioned()) throw new IllegalStateException("Event log is not partitioned");
+
+        String name = EventPartitions.nameFor(month);
+        // Checked on every shard first, so a bad request restores nothing
+        List<Boolean> archivedOn = shardRouter.onEach(shard -> {
+            if (attachedPartitionNames().contains(name)) {
+                throw new IllegalArgumentException("Partition is already attached: " + label(name));
+            }
+            return !jdbcTemplate.queryForList("SELECT file_path FROM event_archive WHERE partition_name = ?", name).isEmpty();
+        });
+        if (!archivedOn.contains(true)) throw new IllegalArgumentException("No archive for " + month);
+
+        List<EventPartition> restored = new ArrayList<>();
+        shardRouter.onEach(shard -> {
+            if (archivedOn.get(shard)) restored.add(restoreShard(month, name, shard));
+            return null;
+        });
+        return restored;
+    }
+
+    private EventPartition restoreShard(YearMonth month, String name, int shard) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT file_path FROM event_archive WHERE partition_name = ?", name);
+        Path file = Path.of((String) rows.get(0).get("file_path"));
+
+        long restoredRows = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(EventPartitions.createSql(month));
+            long count = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+                try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)), 64 * 1024)) {
+                    return copyManager(con).copyIn(
+                            "COPY " + name + " (" + EventPartitions.COLUMNS + ") FROM STDIN (FORMAT binary)", in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            jdbcTemplate.update("UPDATE event_archive SET restored_at = ? WHERE partition_name = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), name);
+            return count;
+        });
+
+        logger.info("Restored partition {} from {} ({} events)", label(name), file, restoredRows);
+        return new EventPartition(name, month.toString(), "RESTORED", restoredRows, file.toString(), shard);
+    }
+
+    // --- Helpers ---
+
+    private List<String> createUpcomingPartitions() {
+        Set<String> attached = new HashSet<>(attachedPartitionNames());
+        List<String> created = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = EventPartitions.nameFor(month);
+            if (attached.contains(name)) continue;
+            try {
+                jdbcTemplate.execute(EventPartitions.createSql(month));
+                created.add(name);
+            } catch (RuntimeException e) {
+                // Typically rows for that month already sit in the default partition
+                logger.error("Could not create partition {}", name, e);
+            }
+        }
+        if (!created.isEmpty()) logger.info("Created event partitions {}", created.stream().map(this::label).toList());
+        return created;
+    }
+
+    private void archive(String name, YearMonth month) throws IOException {
+        Path dir = shardRouter.isSharded() ? archiveDir.resolve("shard-" + ShardContext.current()) : archiveDir;
+        Files.createDirectories(dir);
+        Path file = dir.resolve(name + ".pgcopy.gz").toAbsolutePath();
+        Path tmp = dir.resolve(name + ".pgcopy.gz.tmp");
+
+        // 1. Copy out while still attached (nothing writes to months past retention)
+        long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), 64 * 1024)) {
+                return copyManager(con).copyOut(
+                        "COPY " + name + " (" + EventPartitions.COLUMNS + ") TO STDOUT (FORMAT binary)", out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 2. Detach and drop only if the partition still holds exactly what was written to the file
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + name + " IN ACCESS EXCLUSIVE MODE");
+            Long current = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + name, Long.class);
+            if (current == null || current != copied) {
+                throw new IllegalStateException("Partition " + name + " changed during archive (" + copied + " -> " + current + ")");
+            }
+            jdbcTemplate.execute("ALTER TABLE " + EventPartitions.PARENT + " DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE " + name);
+            jdbcTemplate.update(RECORD_ARCHIVE_SQL, name, month.atDay(1), month.plusMonths(1).atDay(1),
+                    file.toString(), copied, Timestamp.valueOf(LocalDateTime.now()));
+        });
+        logger.info("Archived partition {} to {} ({} events)", label(name), file, copied);
+    }
+
+    private List<String> attachedPartitionNames() {
+        return jdbcTemplate.query(ATTACHED_SQL, (rs, i) -> rs.getString(1), EventPartitions.PARENT);
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            try {
+                Integer count = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?",
+                        Integer.class, EventPartitions.PARENT);
+                partitioned = count != null && count > 0;
+            } catch (RuntimeException e) {
+                logger.warn("Could not determine event log partitioning, archive job disabled", e);
+                partitioned = false;
+            }
+        }
+        return partitioned;
+    }
+
+    // Partition name as reported, qualified by the shard when sharded
+    private String label(String partitionName) {
+        return shardRouter.isSharded() ? "shard-" + ShardContext.current() + "/" + partitionName : partitionName;
+    }
+
+    private static CopyManager copyManager(java.sql.Connection con) throws java.sql.SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static String monthLabel(String partitionName) {
+        return EventPartitions.monthOf(partitionName).map(YearMonth::toString).orElse("default");
+    }
+}
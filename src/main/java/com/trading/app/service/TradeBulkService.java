@@ -0,0 +1,14 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.dto.BulkJob;
+
+import java.util.Optional;
+
+public interface TradeBulkService {
+    // Queues a bulk verify/cancel of every eligible trade matching the filter; progress via getJob
+    BulkJob verify(BulkFilter filter);
+    BulkJob cancel(BulkFilter filter);
+
+    Optional<BulkJob> getJob(String jobId);
+}
@@ -0,0 +1,167 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.dto.BulkJob;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.service.TradeBulkService;
+import com.trading.app.service.TradeProjectionService;
+import com.trading.app.service.TradeWriteService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk verify/cancel by filter. A job walks the matching trades in trade_ref order one chunk per
+ * transaction: the chunk's trade_state rows are locked and selected in one statement, and its events
+ * are inserted and projected as one batch. Only trades last changed no later than the newest match at job
+ * start are taken (trade refs need not sort by age: legacy refs sort above ULIDs and are random within a
+ * prefix), so trades booked or amended meanwhile are left alone and a filter that keeps matching new
+ * bookings still finishes. Each committed chunk is final, so a failed job leaves the trades it already
+ * reached transitioned and can simply be submitted again for the rest. Sharded, the walk goes shard by shard.
+ *
+ * Jobs run one at a time on a background thread; their status is kept for the most recent history-size jobs.
+ */
+@Service
+@RequiredArgsConstructor
+public class TradeBulkServiceImpl implements TradeBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeBulkServiceImpl.class);
+
+    @Value("${app.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.bulk.history-size:100}")
+    private int historySize;
+
+    @Value("${app.bulk.max-refs:100000}")
+    private int maxRefs;
+
+    private final TradeWriteService writeService;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private Map<String, BulkJob> jobs;
+    private ExecutorService runner;
+
+    private Timer chunkTimer;
+    private Counter processedCounter;
+
+    @PostConstruct
+    void start() {
+        jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BulkJob> eldest) {
+                return size() > historySize;
+            }
+        });
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "trade-bulk-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        chunkTimer = Timer.builder("trade.bulk.chunk")
+                .description("Lock, append and project one bulk chunk")
+                .register(meterRegistry);
+        processedCounter = Counter.builder("trade.bulk.processed")
+                .description("Trades transitioned by bulk verify/cancel")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // The running chunk commits or rolls back on its own; later chunks are not started
+        runner.shutdownNow();
+        runner.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public BulkJob verify(BulkFilter filter) {
+        return submit("VERIFY", filter);
+    }
+
+    @Override
+    public BulkJob cancel(BulkFilter filter) {
+        return submit("CANCEL", filter);
+    }
+
+    @Override
+    public Optional<BulkJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private BulkJob submit(String action, BulkFilter filter) {
+        // An empty filter would select the whole book
+        if (filter == null || filter.isEmpty()) {
+            throw new IllegalArgumentException("Bulk " + action.toLowerCase() + " needs at least one filter field");
+        }
+        if (filter.getTradeRefs() != null && filter.getTradeRefs().size() > maxRefs) {
+            throw new IllegalArgumentException("At most " + maxRefs + " trade refs per bulk request");
+        }
+
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), action, filter);
+        jobs.put(job.getJobId(), job);
+        runner.execute(() -> run(job));
+        return job;
+    }
+
+    private void run(BulkJob job) {
+        job.setStatus("RUNNING");
+        job.setStartedAt(LocalDateTime.now());
+        try {
+            List<TradeProjectionService.Matches> targets = new ArrayList<>();
+            for (int shard = 0; shard < shardRouter.count(); shard++) {
+                targets.add(writeService.findBulkTargets(shard, job.getAction(), job.getFilter()));
+            }
+            job.setMatched(targets.stream().mapToLong(TradeProjectionService.Matches::trades).sum());
+
+            for (int shard = 0; shard < targets.size() && !Thread.currentThread().isInterrupted(); shard++) {
+                // Bounded by the database's own latest_event_time of the matches, not this instance's clock
+                LocalDateTime asOf = targets.get(shard).latestEventTime();
+                String afterRef = null;
+                while (asOf != null && !Thread.currentThread().isInterrupted()) {
+                    long start = System.nanoTime();
+                    List<TradeEvent> events = writeService.applyBulkChunk(
+                            shard, job.getAction(), job.getFilter(), afterRef, asOf, chunkSize);
+                    if (events.isEmpty()) break;
+                    chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+                    // Chunks come back in trade_ref order, so the last ref is the keyset cursor
+                    afterRef = events.get(events.size() - 1).getTradeRef();
+                    job.setProcessed(job.getProcessed() + events.size());
+                    processedCounter.increment(events.size());
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                job.setStatus("FAILED");
+                job.setError("Stopped by shutdown");
+            } else {
+                job.setStatus("COMPLETED");
+            }
+        } catch (RuntimeException e) {
+            logger.error("Bulk {} job {} failed after {} trades", job.getAction(), job.getJobId(), job.getProcessed(), e);
+            job.setStatus("FAILED");
+            job.setError(e.getMessage());
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        logger.info("Bulk {} job {}: {} of {} matched trades in {} ms", job.getAction(), job.getJobId(),
+                job.getProcessed(), job.getMatched(),
+                Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis());
+    }
+}
@@ -1,5 +1,11 @@
 package com.trading.app.service;
 
+import com.trading.app.dto.ExportFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface TradeExportService {
     String generateCsvExport();
-}
\ No newline at end of file
+    void writeCsvExport(ExportFilter filter, OutputStream out) throws IOException;
+}
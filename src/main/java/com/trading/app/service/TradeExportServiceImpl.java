@@ -1,37 +1,151 @@
 package com.trading.app.service;
 
-import com.trading.app.dto.PageResult;
-import com.trading.app.dto.TradeAggregate;
+import com.trading.app.dto.ExportFilter;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class TradeExportServiceImpl implements TradeExportService {
 
-    private final TradeReadService readService;
+    private static final String HEADER = "TradeRef,CurrentStatus,Subject,Source,Counterparty,Notional,LastUpdate\n";
+    private static final int FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Same order as the query, to merge shards by
+    private static final Comparator<Row> NEWEST_FIRST = Comparator
+            .comparing(Row::lastUpdate, Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(Row::tradeRef, Comparator.reverseOrder());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private Timer exportTimer;
+    private DistributionSummary exportRows;
+    private DistributionSummary exportBytes;
+
+    private record Row(String tradeRef, String status, String subject, String source, String counterparty,
+                       double notional, LocalDateTime lastUpdate) {}
+
+    @PostConstruct
+    void registerMeters() {
+        exportTimer = Timer.builder("trade.export")
+                .description("CSV exports, query to last byte flushed")
+                .register(meterRegistry);
+        exportRows = DistributionSummary.builder("trade.export.rows")
+                .description("Rows streamed per export")
+                .register(meterRegistry);
+        exportBytes = DistributionSummary.builder("trade.export.bytes")
+                .description("Bytes written per export (before compression)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
 
     @Override
+    @Transactional(readOnly = true)
     public String generateCsvExport() {
-        // Fetch ALL items (bypass pagination)
-        PageResult<TradeAggregate> result = readService.getTradeDashboard(null, 0, Integer.MAX_VALUE);
-
-        StringBuilder csv = new StringBuilder();
-        csv.append("TradeRef,CurrentStatus,Subject,Source,Counterparty,Notional,LastUpdate\n");
-
-        for (TradeAggregate t : result.getData()) {
-            csv.append(safe(t.getTradeRef())).append(",")
-                    .append(safe(t.getStatus())).append(",")
-                    .append(safe(t.getLatestEvent().getSubject())).append(",")
-                    .append(safe(t.getLatestEvent().getSourceSystem())).append(",")
-                    .append(safe(t.getCounterparty())).append(",")
-                    .append(t.getNotional()).append(",")
-                    .append(t.getLatestEvent().getEventTime()).append("\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeCsvExport(new ExportFilter(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return csv.toString();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    @Transactional(readOnly = true) // Postgres only honours the fetch size (server-side cursor) inside a transaction
+    public void writeCsvExport(ExportFilter filter, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(counted, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long[] rows = {0};
+        writer.write(HEADER);
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT trade_ref, status, subject, source_system, COALESCE(counterparty, 'UNKNOWN') AS counterparty, " +
+                "notional, latest_event_time " +
+                "FROM trade_state WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.getFromDate() != null) {
+            sql.append(" AND trading_date >= ?");
+            params.add(filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" AND trading_date <= ?");
+            params.add(filter.getToDate());
+        }
+        if (filter.getStatus() != null && !filter.getStatus().isBlank()) {
+            sql.append(" AND status = ?");
+            params.add(filter.getStatus().toUpperCase());
+        }
+        sql.append(" ORDER BY latest_event_time DESC, trade_ref DESC");
+
+        // Rows are written as they arrive, so memory stays flat regardless of the number of trades;
+        // sharded, every shard streams at once and the rows are merged back into one order
+        shardRouter.<Row>scatterMerged(NEWEST_FIRST, (shard, shardRows) -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, rs -> {
+            shardRows.accept(readRow(rs));
+        }), Long.MAX_VALUE, row -> {
+            try {
+                writeRow(writer, row);
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        writer.flush();
+
+        exportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        exportRows.record(rows[0]);
+        exportBytes.record(counted.count());
+    }
+
+    private Row readRow(ResultSet rs) throws SQLException {
+        Timestamp lastUpdate = rs.getTimestamp("latest_event_time");
+        return new Row(rs.getString("trade_ref"), rs.getString("status"), rs.getString("subject"),
+                rs.getString("source_system"), rs.getString("counterparty"), rs.getDouble("notional"),
+                lastUpdate == null ? null : lastUpdate.toLocalDateTime());
+    }
+
+    private void writeRow(Writer writer, Row row) throws IOException {
+        writer.append(safe(row.tradeRef())).append(',')
+                .append(safe(row.status())).append(',')
+                .append(safe(row.subject())).append(',')
+                .append(safe(row.source())).append(',')
+                .append(safe(row.counterparty())).append(',')
+                .append(String.valueOf(row.notional())).append(',')
+                .append(String.valueOf(row.lastUpdate())).append('\n');
     }
 
     private String safe(String input) {
         return input == null ? "" : input.replace(",", " "); // Basic CSV sanitization
     }
-}
\ No newline at end of file
+}
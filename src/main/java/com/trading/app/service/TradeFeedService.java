@@ -0,0 +1,10 @@
+package com.trading.app.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+public interface TradeFeedService {
+    // Live blotter feed: a snapshot page, then one event per changed trade. Empty when at capacity.
+    Optional<SseEmitter> subscribe(int snapshotSize);
+}
@@ -0,0 +1,363 @@
+package com.trading.app.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.app.config.ReadRouting;
+import com.trading.app.dto.PageResult;
+import com.trading.app.dto.TradeSummary;
+import com.trading.app.event.TradeEventsCommitted;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.service.TradeFeedService;
+import com.trading.app.service.TradeReadService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of committed trade changes to SSE subscribers.
+ *
+ * Commits only mark trade refs dirty. A dispatcher thread coalesces them for a few milliseconds,
+ * builds each changed summary once and serialises it once, then hands the JSON to every subscriber.
+ * Each subscriber keeps at most one pending update per trade (newer replaces older) and is dropped
+ * once too many distinct trades are pending; the client's EventSource reconnects and gets a fresh snapshot.
+ *
+ * Only a subscriber's own sender ever touches its emitter after the snapshot: send and complete share the
+ * emitter's lock, so the dispatcher merely marks a dropped subscriber and its drain completes the stream.
+ * A send blocked for longer than max-send-ms (a client that stopped reading) gets its subscriber dropped and
+ * its sender thread written off: the pool grows by one until that write gives up, so stalled sockets
+ * never leave healthy subscribers without senders.
+ */
+@Service
+@RequiredArgsConstructor
+public class TradeFeedServiceImpl implements TradeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeFeedServiceImpl.class);
+
+    @Value("${app.feed.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${app.feed.max-pending-per-subscriber:1000}")
+    private int maxPending;
+
+    @Value("${app.feed.coalesce-ms:50}")
+    private long coalesceMs;
+
+    @Value("${app.feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${app.feed.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${app.feed.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${app.feed.max-send-ms:5000}")
+    private long maxSendMs;
+
+    private final TradeReadService readService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyRefs = new LinkedHashSet<>();
+
+    private ScheduledExecutorService dispatcher;
+    private ThreadPoolExecutor senders;
+    private int stalledSenders; // guarded by senders
+    private Counter deltas;
+    private Counter dropped;
+    private Counter stalled;
+
+    @PostConstruct
+    void start() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(daemon("trade-feed-dispatcher"));
+        // Platform threads: SseEmitter.send is synchronized and would pin a virtual thread during the write
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("trade-feed-sender"));
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMs = Math.max(maxSendMs / 2, 1);
+        dispatcher.scheduleWithFixedDelay(this::dropStalled, checkMs, checkMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("trade.feed.subscribers", subscribers, Set::size)
+                .description("Open live blotter streams")
+                .register(meterRegistry);
+        deltas = Counter.builder("trade.feed.deltas")
+                .description("Changed trades published to the live feed")
+                .register(meterRegistry);
+        dropped = Counter.builder("trade.feed.dropped")
+                .description("Subscribers disconnected for falling too far behind")
+                .register(meterRegistry);
+        stalled = Counter.builder("trade.feed.stalled")
+                .description("Subscribers disconnected because a send blocked for longer than max-send-ms")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+        senders.shutdown();
+    }
+
+    @Override
+    public Optional<SseEmitter> subscribe(int snapshotSize) {
+        if (subscribers.size() >= maxSubscribers) return Optional.empty();
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        // Register before reading the snapshot so no commit falls between the two; duplicates are harmless
+        subscribers.add(subscriber);
+        try {
+            // From the primary: a lagging replica could miss a commit whose delta went out before we registered
+            PageResult<TradeSummary> snapshot = ReadRouting.onPrimary(
+                    () -> readService.getTradeDashboard(null, 0, Math.max(snapshotSize, 1)));
+            emitter.send(SseEmitter.event().name("snapshot").data(toJson(snapshot)));
+        } catch (IOException | RuntimeException e) {
+            subscriber.close();
+            emitter.completeWithError(e);
+            return Optional.of(emitter);
+        }
+        subscriber.releaseAndDrain();
+        return Optional.of(emitter);
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        if (subscribers.isEmpty()) return;
+
+        synchronized (dirtyRefs) {
+            boolean schedule = dirtyRefs.isEmpty();
+            committed.events().stream().map(TradeEvent::getTradeRef).forEach(dirtyRefs::add);
+            if (schedule) dispatcher.schedule(this::publish, coalesceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // --- Dispatcher ---
+
+    private void publish() {
+        List<String> refs;
+        synchronized (dirtyRefs) {
+            refs = new ArrayList<>(dirtyRefs);
+            dirtyRefs.clear();
+        }
+        if (refs.isEmpty() || subscribers.isEmpty()) return;
+
+        try {
+            for (TradeSummary summary : readService.getTradesByRef(refs)) {
+                String json = toJson(summary);
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(summary.getTradeRef(), json);
+                }
+                deltas.increment();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Live feed publish failed for {} trades", refs.size(), e);
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sendingLongerThan(now, TimeUnit.MILLISECONDS.toNanos(maxSendMs))) {
+                stalled.increment();
+                subscriber.writeOffSender();
+                subscriber.evict();
+            }
+        }
+    }
+
+    // A stalled sender keeps its thread until the write fails; one more thread stands in for it meanwhile
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            stalledSenders += delta;
+            int size = senderThreads + stalledSenders;
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // --- Subscriber ---
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        // Latest JSON per trade ref, in arrival order (guarded by this)
+        private final Map<String, String> pending = new LinkedHashMap<>();
+        private boolean heartbeatDue;
+        private boolean closed;
+        // Dropped by the feed: the emitter still has to be completed, by this subscriber's drain
+        private boolean completePending;
+        // Held by the request thread until the snapshot is out, then by one sender at a time
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        // When the current send started (0 while none is in progress), and whether its thread was written off
+        private volatile long sendStartedNanos;
+        private final AtomicBoolean writtenOff = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(String tradeRef, String json) {
+            boolean overflow;
+            synchronized (this) {
+                if (closed) return;
+                pending.remove(tradeRef);
+                pending.put(tradeRef, json);
+                overflow = pending.size() > maxPending;
+            }
+            if (overflow) {
+                dropped.increment();
+                evict();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        // Called from the dispatcher, which must not block on the emitter: the drain completes it
+        void evict() {
+            synchronized (this) {
+                if (closed) return;
+                completePending = true;
+            }
+            close();
+            scheduleDrain();
+        }
+
+        boolean sendingLongerThan(long now, long nanos) {
+            long started = sendStartedNanos;
+            return started != 0 && now - started > nanos;
+        }
+
+        void writeOffSender() {
+            if (writtenOff.compareAndSet(false, true)) resizeSenders(1);
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (closed) return;
+                heartbeatDue = true;
+            }
+            scheduleDrain();
+        }
+
+        void releaseAndDrain() {
+            draining.set(false);
+            if (hasWork()) scheduleDrain();
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+        }
+
+        private synchronized boolean hasWork() {
+            return completePending || !closed && (!pending.isEmpty() || heartbeatDue);
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<String> batch;
+                    boolean ping;
+                    boolean complete;
+                    synchronized (this) {
+                        complete = completePending;
+                        completePending = false;
+                        if (closed && !complete) return;
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                        ping = heartbeatDue;
+                        heartbeatDue = false;
+                    }
+                    if (complete) {
+                        emitter.complete();
+                        return;
+                    }
+                    if (batch.isEmpty() && !ping) return;
+
+                    for (String json : batch) {
+                        send(SseEmitter.event().name("trade").data(json));
+                    }
+                    if (batch.isEmpty()) {
+                        send(SseEmitter.event().comment("keepalive"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks may not fire for a broken pipe
+                close();
+            } finally {
+                if (writtenOff.compareAndSet(true, false)) resizeSenders(-1);
+                draining.set(false);
+                // Work may have arrived between the last check and releasing the flag
+                if (hasWork()) scheduleDrain();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedNanos = 0;
+            }
+        }
+    }
+}
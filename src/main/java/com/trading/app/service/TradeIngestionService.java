@@ -0,0 +1,21 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.SubmissionStatus;
+import com.trading.app.dto.TradeSubmission;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface TradeIngestionService {
+    boolean isEnabled();
+
+    // idempotencyKey may be null; a repeated key returns the original request's ticket (replayed)
+    Ticket submit(TradeSubmission submission, String idempotencyKey);
+    Ticket cancel(String tradeId, String idempotencyKey);
+    Ticket verify(String tradeId, String idempotencyKey);
+
+    Optional<SubmissionStatus> getStatus(String eventId);
+
+    // Event id is known at enqueue time; the future completes with it once its micro-batch has committed
+    record Ticket(String eventId, CompletableFuture<String> committed, boolean replayed) {}
+}
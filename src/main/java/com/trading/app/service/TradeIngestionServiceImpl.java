@@ -0,0 +1,275 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.dto.SubmissionStatus;
+import com.trading.app.dto.TradeSubmission;
+import com.trading.app.exception.IngestionQueueFullException;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.repository.TradeRepository;
+import com.trading.app.service.IdempotencyService;
+import com.trading.app.service.TradeIngestionService;
+import com.trading.app.service.TradeWriteService;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Optional group-commit write path. Callers enqueue prepared events into a bounded queue and a single
+ * writer thread drains it, committing up to max-batch-size events per transaction (waiting at most
+ * max-linger-ms for a batch to fill). A full queue rejects new work instead of growing.
+ */
+@Service
+@RequiredArgsConstructor
+public class TradeIngestionServiceImpl implements TradeIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeIngestionServiceImpl.class);
+
+    @Value("${app.ingest.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ingest.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.ingest.max-linger-ms:5}")
+    private long maxLingerMs;
+
+    @Value("${app.ingest.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    @Value("${app.ingest.status-cache-size:100000}")
+    private int statusCacheSize;
+
+    private final TradeWriteService writeService;
+    private final TradeRepository repository;
+    private final IdempotencyService idempotencyService;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private BlockingQueue<PendingWrite> queue;
+    private Map<String, SubmissionStatus> statuses;
+    // Idempotency keys queued but not yet committed, so an in-flight retry gets the same ticket
+    private final Map<String, PendingWrite> inFlight = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Timer commitLatency;
+    private Timer endToEndLatency;
+    private Counter rejected;
+    private Counter failed;
+
+    private record PendingWrite(TradeEvent event, String idempotencyKey, CompletableFuture<String> future, long enqueuedAt) {
+        String eventId() {
+            return event.getEventId();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SubmissionStatus> eldest) {
+                return size() > statusCacheSize;
+            }
+        });
+
+        Gauge.builder("trade.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Submissions waiting for the writer")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("trade.ingest.batch.size")
+                .description("Events per group commit")
+                .register(meterRegistry);
+        commitLatency = Timer.builder("trade.ingest.commit.latency")
+                .description("Time to persist and commit one micro-batch")
+                .register(meterRegistry);
+        endToEndLatency = Timer.builder("trade.ingest.latency")
+                .description("Enqueue to commit, per submission")
+                .register(meterRegistry);
+        rejected = Counter.builder("trade.ingest.rejected")
+                .description("Submissions refused because the queue was full")
+                .register(meterRegistry);
+        failed = Counter.builder("trade.ingest.failed")
+                .description("Submissions that could not be committed")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "trade-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Async ingestion enabled (capacity={}, maxBatch={}, linger={}ms)", queueCapacity, maxBatchSize, maxLingerMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) return;
+        // Writer keeps draining until the queue is empty, then exits
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Ticket submit(TradeSubmission submission, String idempotencyKey) {
+        return replayOf(idempotencyKey).orElseGet(() -> enqueue(writeService.prepareSubmission(submission, idempotencyKey), idempotencyKey));
+    }
+
+    @Override
+    public Ticket cancel(String tradeId, String idempotencyKey) {
+        return replayOf(idempotencyKey).orElseGet(() -> enqueue(writeService.prepareCancel(tradeId), idempotencyKey));
+    }
+
+    @Override
+    public Ticket verify(String tradeId, String idempotencyKey) {
+        return replayOf(idempotencyKey).orElseGet(() -> enqueue(writeService.prepareVerify(tradeId), idempotencyKey));
+    }
+
+    @Override
+    public Optional<SubmissionStatus> getStatus(String eventId) {
+        SubmissionStatus status = statuses == null ? null : statuses.get(eventId);
+        if (status != null) return Optional.of(status);
+
+        // Evicted from the status cache (or submitted before a restart): the event log is the source of truth
+        boolean stored = shardRouter.scatter(shard -> repository.existsById(eventId)).contains(true);
+        return stored ? Optional.of(SubmissionStatus.committed(eventId)) : Optional.empty();
+    }
+
+    // --- Writer ---
+
+    private Optional<Ticket> replayOf(String idempotencyKey) {
+        if (idempotencyKey == null) return Optional.empty();
+
+        PendingWrite queued = inFlight.get(idempotencyKey);
+        if (queued != null) return Optional.of(new Ticket(queued.eventId(), queued.future(), true));
+        return idempotencyService.find(idempotencyKey)
+                .map(eventId -> new Ticket(eventId, CompletableFuture.completedFuture(eventId), true));
+    }
+
+    private Ticket enqueue(TradeEvent event, String idempotencyKey) {
+        if (!enabled) throw new IllegalStateException("Async ingestion is disabled");
+
+        PendingWrite pending = new PendingWrite(event, idempotencyKey, new CompletableFuture<>(), System.nanoTime());
+        if (idempotencyKey != null) {
+            // Two retries racing past replayOf: the second one rides on the first's ticket
+            PendingWrite queued = inFlight.putIfAbsent(idempotencyKey, pending);
+            if (queued != null) return new Ticket(queued.eventId(), queued.future(), true);
+        }
+        statuses.put(pending.eventId(), SubmissionStatus.pending(pending.eventId()));
+
+        boolean accepted;
+        try {
+            accepted = queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            statuses.remove(pending.eventId());
+            release(pending);
+            rejected.increment();
+            throw new IngestionQueueFullException("Ingestion queue is full (" + queueCapacity + " pending)");
+        }
+        return new Ticket(pending.eventId(), pending.future(), false);
+    }
+
+    private void drainLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Take whatever is already queued, then linger briefly for the batch to fill
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                // One group commit per shard, so each stays all-or-nothing
+                shardRouter.byShard(batch, p -> p.event().getTradeRef()).values().forEach(this::commit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> fail(p, e));
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Ingestion writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(p -> fail(p, e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        Map<String, String> repeats;
+        try {
+            Map<String, String> keys = new HashMap<>();
+            batch.stream().filter(p -> p.idempotencyKey() != null).forEach(p -> keys.put(p.eventId(), p.idempotencyKey()));
+            repeats = writeService.persistAll(batch.stream().map(PendingWrite::event).collect(Collectors.toList()), keys);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            // Retry one by one so a single bad submission does not fail its neighbours
+            logger.warn("Group commit of {} events failed, retrying individually", batch.size(), e);
+            batch.forEach(p -> commit(List.of(p)));
+            return;
+        }
+
+        long now = System.nanoTime();
+        commitLatency.record(now - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (PendingWrite p : batch) {
+            // A key committed elsewhere first (another instance, or before a restart): point at that event
+            String eventId = repeats.getOrDefault(p.eventId(), p.eventId());
+            statuses.put(p.eventId(), SubmissionStatus.committed(eventId));
+            endToEndLatency.record(now - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+            p.future().complete(eventId);
+            release(p);
+        }
+    }
+
+    private void fail(PendingWrite pending, Exception e) {
+        if (pending.future().isDone()) return;
+        failed.increment();
+        statuses.put(pending.eventId(), SubmissionStatus.failed(pending.eventId(), e.getMessage()));
+        pending.future().completeExceptionally(e);
+        // A failed write did not use its key; the client may retry with it
+        release(pending);
+    }
+
+    private void release(PendingWrite pending) {
+        if (pending.idempotencyKey() != null) inFlight.remove(pending.idempotencyKey(), pending);
+    }
+}
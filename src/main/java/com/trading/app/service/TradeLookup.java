@@ -0,0 +1,9 @@
+package com.trading.app.service;
+
+import com.trading.app.model.TradeEvent;
+
+/** Finds one event by id: all the write path needs from the read side (see TradeReadService). */
+@FunctionalInterface
+public interface TradeLookup {
+    TradeEvent getTradeById(String eventId);
+}
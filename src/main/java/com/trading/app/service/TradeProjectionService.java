@@ -0,0 +1,24 @@
+package com.trading.app.service;
+
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TradeProjectionService {
+    // Row-locks the current state of these trades until commit; trades without a row are absent
+    Map<String, TradeState> lockStates(Collection<String> tradeRefs);
+    // Trades matching a bulk filter whose status is one of statuses: how many, and the latest of their latest_event_time
+    Matches countMatching(BulkFilter filter, Collection<String> statuses);
+    // Next chunk of those trades after afterRef (trade_ref order) last changed at or before asOf, row-locked until commit
+    List<TradeState> lockMatching(BulkFilter filter, Collection<String> statuses, String afterRef, LocalDateTime asOf, int limit);
+    void apply(TradeEvent event);
+    void applyAll(List<TradeEvent> events);
+    int rebuild();
+
+    record Matches(long trades, LocalDateTime latestEventTime) {}
+}
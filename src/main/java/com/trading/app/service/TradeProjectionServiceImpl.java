@@ -0,0 +1,182 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+import com.trading.app.service.TradeProjectionService;
+import com.trading.app.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Service
+@RequiredArgsConstructor
+public class TradeProjectionServiceImpl implements TradeProjectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeProjectionServiceImpl.class);
+
+    // Business fields are optional: events without them keep the current counterparty/notional
+    private static final String UPSERT_SQL =
+            "INSERT INTO trade_state (trade_ref, status, subject, source_system, counterparty, notional, trading_date, " +
+            "first_trading_date, latest_event_id, latest_event_type, latest_event_time, event_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1) " +
+            "ON CONFLICT (trade_ref) DO UPDATE SET " +
+            "status = EXCLUDED.status, " +
+            "subject = EXCLUDED.subject, " +
+            "source_system = EXCLUDED.source_system, " +
+            "counterparty = COALESCE(EXCLUDED.counterparty, trade_state.counterparty), " +
+            "notional = COALESCE(EXCLUDED.notional, trade_state.notional), " +
+            "trading_date = EXCLUDED.trading_date, " +
+            "first_trading_date = LEAST(trade_state.first_trading_date, EXCLUDED.first_trading_date), " +
+            "latest_event_id = EXCLUDED.latest_event_id, " +
+            "latest_event_type = EXCLUDED.latest_event_type, " +
+            "latest_event_time = EXCLUDED.latest_event_time, " +
+            "event_count = trade_state.event_count + 1";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO trade_state (trade_ref, status, subject, source_system, counterparty, notional, trading_date, " +
+            "first_trading_date, latest_event_id, latest_event_type, latest_event_time, event_count) " +
+            "SELECT DISTINCT ON (trade_ref) trade_ref, " +
+            "CASE event_type WHEN 'TRADE_CANCELLED' THEN 'CANCELLED' WHEN 'TRADE_VERIFIED' THEN 'VERIFIED' ELSE 'LIVE' END, " +
+            "subject, source_system, COALESCE(counterparty, 'UNKNOWN'), COALESCE(notional_amount, 0), " +
+            "trading_date, MIN(trading_date) OVER (PARTITION BY trade_ref), event_id, event_type, event_time, " +
+            "COUNT(*) OVER (PARTITION BY trade_ref) " +
+            "FROM trading_pipeline_tracker " +
+            "ORDER BY trade_ref, event_time DESC";
+
+    private static final BeanPropertyRowMapper<TradeState> STATE_MAPPER = new BeanPropertyRowMapper<>(TradeState.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, TradeState> lockStates(Collection<String> tradeRefs) {
+        if (tradeRefs.isEmpty()) return Map.of();
+
+        // Locked in trade_ref order so concurrent writers touching the same trades cannot deadlock
+        String sql = "SELECT * FROM trade_state WHERE trade_ref IN (" +
+                String.join(", ", Collections.nCopies(tradeRefs.size(), "?")) + ") ORDER BY trade_ref FOR UPDATE";
+        Map<String, TradeState> states = new HashMap<>();
+        for (TradeState state : jdbcTemplate.query(sql, STATE_MAPPER, tradeRefs.toArray())) {
+            states.put(state.getTradeRef(), state);
+        }
+        return states;
+    }
+
+    @Override
+    public Matches countMatching(BulkFilter filter, Collection<String> statuses) {
+        List<Object> params = new ArrayList<>();
+        String where = matchClause(filter, statuses, params);
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(latest_event_time) FROM trade_state WHERE " + where,
+                (rs, rowNum) -> new Matches(rs.getLong(1), rs.getObject(2, LocalDateTime.class)), params.toArray());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<TradeState> lockMatching(BulkFilter filter, Collection<String> statuses, String afterRef, LocalDateTime asOf, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM trade_state WHERE ")
+                .append(matchClause(filter, statuses, params))
+                .append(" AND latest_event_time <= ?");
+        params.add(asOf);
+        if (afterRef != null) {
+            sql.append(" AND trade_ref > ?");
+            params.add(afterRef);
+        }
+        // Same lock order as lockStates; a row whose status changed while we waited for it is skipped
+        sql.append(" ORDER BY trade_ref LIMIT ? FOR UPDATE");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), STATE_MAPPER, params.toArray());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(TradeEvent event) {
+        jdbcTemplate.update(UPSERT_SQL, upsertArgs(event));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyAll(List<TradeEvent> events) {
+        if (events.isEmpty()) return;
+
+        // Applied in list order, so several events for one trade still land newest-last
+        jdbcTemplate.batchUpdate(UPSERT_SQL, events.stream().map(this::upsertArgs).collect(Collectors.toList()));
+    }
+
+    @Override
+    public int rebuild() {
+        // Regenerate the projection from the event log in a single set-based pass per shard
+        int rows = IntStream.range(0, shardRouter.count()).map(shard -> shardRouter.write(shard, () -> {
+            jdbcTemplate.execute("LOCK TABLE trade_state IN EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM trade_state");
+            return jdbcTemplate.update(REBUILD_SQL);
+        })).sum();
+        logger.info("Rebuilt trade_state projection: {} trades", rows);
+        return rows;
+    }
+
+    private String matchClause(BulkFilter filter, Collection<String> statuses, List<Object> params) {
+        StringBuilder where = new StringBuilder("status IN (")
+                .append(String.join(", ", Collections.nCopies(statuses.size(), "?"))).append(")");
+        params.addAll(statuses);
+        if (filter.getCounterparty() != null) {
+            where.append(" AND counterparty = ?");
+            params.add(filter.getCounterparty());
+        }
+        if (filter.getSubject() != null) {
+            where.append(" AND subject = ?");
+            params.add(filter.getSubject());
+        }
+        if (filter.getSource() != null) {
+            where.append(" AND source_system = ?");
+            params.add(filter.getSource());
+        }
+        if (filter.getFromDate() != null) {
+            where.append(" AND trading_date >= ?");
+            params.add(filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            where.append(" AND trading_date <= ?");
+            params.add(filter.getToDate());
+        }
+        if (filter.getTradeRefs() != null && !filter.getTradeRefs().isEmpty()) {
+            // One array parameter, however many refs were sent
+            where.append(" AND trade_ref = ANY (?)");
+            params.add(filter.getTradeRefs().toArray(new String[0]));
+        }
+        return where.toString();
+    }
+
+    private Object[] upsertArgs(TradeEvent event) {
+        return new Object[]{
+                event.getTradeRef(),
+                TradeState.statusFor(event.getEventType()),
+                event.getSubject(),
+                event.getSourceSystem(),
+                event.getCounterparty(),
+                event.getNotionalAmount(),
+                event.getTradingDate(),
+                event.getTradingDate(),
+                event.getEventId(),
+                event.getEventType(),
+                event.getEventTime()
+        };
+    }
+}
@@ -1,10 +1,20 @@
 package com.trading.app.service;
 
+import com.trading.app.config.ResponseFormats;
+import com.trading.app.dto.CursorPage;
 import com.trading.app.dto.PageResult;
-import com.trading.app.dto.TradeAggregate;
+import com.trading.app.dto.TradeSummary;
 import com.trading.app.model.TradeEvent;
 
-public interface TradeReadService {
-    PageResult<TradeAggregate> getTradeDashboard(String searchQuery, int page, int size);
-    TradeEvent getTradeById(String eventId);
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+public interface TradeReadService extends TradeLookup {
+    PageResult<TradeSummary> getTradeDashboard(String searchQuery, int page, int size);
+    void writeTradeDashboard(String searchQuery, int page, int size, ResponseFormats.Format format, OutputStream out) throws IOException;
+    CursorPage<TradeSummary> getTradeDashboardAfter(String searchQuery, String cursor, int size);
+    CursorPage<TradeEvent> getTradeHistory(String tradeRef, String cursor, int size);
+    List<TradeSummary> getTradesByRef(Collection<String> tradeRefs);
 }
\ No newline at end of file
@@ -1,111 +1,484 @@
 package com.trading.app.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.trading.app.cache.TradeReadCache;
+import com.trading.app.config.ResponseFormats;
+import com.trading.app.dto.CursorPage;
 import com.trading.app.dto.PageResult;
-import com.trading.app.dto.TradeAggregate;
+import com.trading.app.dto.TradeSummary;
+import com.trading.app.id.LegacyIdGenerator;
+import com.trading.app.id.Ulid;
 import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
 import com.trading.app.repository.TradeRepository;
+import com.trading.app.repository.TradeStateRepository;
+import com.trading.app.search.TradeSearchIndex;
+import com.trading.app.service.CountingOutputStream;
 import com.trading.app.service.TradeReadService;
+import com.trading.app.service.TradeSearchService;
+import com.trading.app.shard.KWayMerge;
+import com.trading.app.shard.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+// Read-only transactions: served by the replica when one is configured and recent enough.
+// Sharded, blotter pages merge every shard's page in blotter order; a deep offset page costs offset + size
+// rows per shard, a cursor page only size + 1.
 @Service
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class TradeReadServiceImpl implements TradeReadService {
 
+    private static final Sort BLOTTER_ORDER = Sort.by(Sort.Direction.DESC, "latestEventTime", "tradeRef");
+
+    // Stand-in date bounds for projection rows written before first_trading_date existed
+    private static final LocalDate NO_LOWER_BOUND = LocalDate.EPOCH;
+    private static final LocalDate NO_UPPER_BOUND = LocalDate.of(9999, 12, 31);
+
+    // Streamed pages read trade_state over JDBC so rows never pile up in the persistence context
+    private static final String STREAM_SELECT = "SELECT trade_ref, status, subject, source_system, counterparty, notional, " +
+            "trading_date, latest_event_id, latest_event_type, latest_event_time, event_count FROM trade_state";
+    private static final String STREAM_SEARCH = " WHERE lower(trade_ref) LIKE ? ESCAPE '\\' OR lower(counterparty) LIKE ? ESCAPE '\\' " +
+            "OR lower(subject) LIKE ? ESCAPE '\\' OR lower(status) LIKE ? ESCAPE '\\'";
+    private static final String STREAM_ORDER = " ORDER BY latest_event_time DESC, trade_ref DESC OFFSET ? LIMIT ?";
+    private static final int FETCH_SIZE = 1000;
+
     private final TradeRepository repository;
-    private final ObjectMapper objectMapper;
+    private final TradeStateRepository stateRepository;
+    private final TradeSearchService searchService;
+    private final TradeReadCache cache;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ShardRouter shardRouter;
+
+    private Timer offsetPages;
+    private Timer cursorPages;
+    private Timer historyPages;
+    private Timer indexSearchPhase;
+    private Timer stateQueryPhase;
+    private Timer historyQueryPhase;
+    private DistributionSummary stateRows;
+    private DistributionSummary eventRows;
+
+    @PostConstruct
+    void registerMeters() {
+        offsetPages = dashboardTimer("offset");
+        cursorPages = dashboardTimer("cursor");
+        historyPages = Timer.builder("trade.read.history")
+                .description("Per-trade history page requests, including cache hits")
+                .register(meterRegistry);
+        indexSearchPhase = phaseTimer("index_search");
+        stateQueryPhase = phaseTimer("state_query");
+        historyQueryPhase = phaseTimer("history_query");
+        stateRows = rowsSummary("trade_state");
+        eventRows = rowsSummary("trading_pipeline_tracker");
+    }
 
     @Override
-    public PageResult<TradeAggregate> getTradeDashboard(String searchQuery, int page, int size) {
-        List<TradeEvent> allEvents = repository.findAllByOrderByEventTimeDesc();
+    public PageResult<TradeSummary> getTradeDashboard(String searchQuery, int page, int size) {
+        return offsetPages.record(() -> cache.getPage("offset", searchQuery, String.valueOf(page), size,
+                () -> loadDashboard(searchQuery, page, size)));
+    }
 
-        // Group by Trade Ref
-        Map<String, List<TradeEvent>> grouped = allEvents.stream()
-                .collect(Collectors.groupingBy(this::extractTradeRef));
+    // Rows go from a server-side cursor to the generator as they arrive: no page cache and no List, so memory
+    // stays flat whatever the page size. Same shape as PageResult, with the totals counted after the rows.
+    @Override
+    public void writeTradeDashboard(String searchQuery, int page, int size, ResponseFormats.Format format, OutputStream out)
+            throws IOException {
+        long start = System.nanoTime();
+        int limit = Math.max(size, 1);
+        long offset = (long) Math.max(page, 0) * limit;
+        boolean search = searchQuery != null && !searchQuery.isBlank();
 
-        // Create Aggregates
-        List<TradeAggregate> allAggregates = grouped.values().stream()
-                .map(this::buildAggregate)
-                .sorted(Comparator.comparing((TradeAggregate t) -> t.getLatestEvent().getEventTime()).reversed())
-                .collect(Collectors.toList());
+        CountingOutputStream counted = new CountingOutputStream(out);
+        long total;
+        long[] rows = {0};
+        long[] writeNanos = {0};
+        try (JsonGenerator generator = format.generator(counted)) {
+            // Flushing after each row would send each one in its own chunk
+            ObjectWriter rowWriter = format.mapper().writerFor(TradeSummary.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            Consumer<TradeState> writeRow = state -> {
+                long rowStart = System.nanoTime();
+                try {
+                    rowWriter.writeValue(generator, toSummary(state));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writeNanos[0] += System.nanoTime() - rowStart;
+                rows[0]++;
+            };
 
-        // Filter
-        if (searchQuery != null && !searchQuery.isBlank()) {
-            String q = searchQuery.toLowerCase();
-            allAggregates = allAggregates.stream()
-                    .filter(agg ->
-                            agg.getTradeRef().toLowerCase().contains(q) ||
-                                    agg.getCounterparty().toLowerCase().contains(q) ||
-                                    agg.getLatestEvent().getSubject().toLowerCase().contains(q) ||
-                                    agg.getStatus().toLowerCase().contains(q)
-                    )
-                    .collect(Collectors.toList());
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("data");
+
+            Optional<TradeSearchIndex.Hits> hits = search
+                    ? indexSearchPhase.record(() -> searchService.search(searchQuery, (int) Math.min(offset, Integer.MAX_VALUE), limit))
+                    : Optional.empty();
+            if (hits.isPresent()) {
+                List<String> refs = hits.get().tradeRefs();
+                for (int from = 0; from < refs.size(); from += FETCH_SIZE) {
+                    streamStates(refs.subList(from, Math.min(from + FETCH_SIZE, refs.size()))).forEach(writeRow);
+                }
+                total = hits.get().total();
+            } else {
+                List<Object> params = new ArrayList<>();
+                if (search) params.addAll(Collections.nCopies(4, likePattern(searchQuery)));
+                String where = search ? STREAM_SEARCH : "";
+                // Sharded, each shard streams its first offset + size rows and the merge skips the offset
+                long shardOffset = shardRouter.isSharded() ? 0 : offset;
+                List<Object> pageParams = new ArrayList<>(params);
+                pageParams.add(shardOffset);
+                pageParams.add(offset - shardOffset + limit);
+                long[] skip = {offset - shardOffset};
+                shardRouter.scatterMerged(TradeState.NEWEST_FIRST,
+                        (shard, shardRows) -> streamRows(STREAM_SELECT + where + STREAM_ORDER, pageParams, shardRows),
+                        offset + limit, state -> {
+                            if (skip[0] > 0) skip[0]--;
+                            else writeRow.accept(state);
+                        });
+                total = shardRouter.scatter(shard -> jdbcTemplate.queryForObject(
+                                "SELECT COUNT(*) FROM trade_state" + where, Long.class, params.toArray()))
+                        .stream().filter(Objects::nonNull).mapToLong(Long::longValue).sum();
+            }
+
+            generator.writeEndArray();
+            generator.writeNumberField("currentPage", page);
+            generator.writeNumberField("totalPages", (int) Math.ceil((double) total / limit));
+            generator.writeNumberField("totalItems", (int) total);
+            generator.writeEndObject();
         }
 
-        // Pagination
-        int totalItems = allAggregates.size();
-        int totalPages = (int) Math.ceil((double) totalItems / size);
-        int start = Math.min(page * size, totalItems);
-        int end = Math.min(start + size, totalItems);
+        stateRows.record(rows[0]);
+        Timer.builder("trade.read.stream")
+                .description("Streamed blotter pages, query to last byte written")
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Timer.builder("trade.read.stream.serialize")
+                .description("Serialising and writing rows per streamed blotter page (excludes the query)")
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .record(writeNanos[0], TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("trade.read.stream.bytes")
+                .description("Bytes written per streamed blotter page (before compression)")
+                .baseUnit("bytes")
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .record(counted.count());
+    }
 
-        return new PageResult<>(allAggregates.subList(start, end), page, totalPages, totalItems);
+    @Override
+    public CursorPage<TradeSummary> getTradeDashboardAfter(String searchQuery, String cursor, int size) {
+        return cursorPages.record(() -> cache.getPage("cursor", searchQuery, cursor, size,
+                () -> loadDashboardAfter(searchQuery, cursor, size)));
     }
 
     @Override
+    @Transactional // Primary: the write path resolves ids it may have just written
     public TradeEvent getTradeById(String eventId) {
-        return repository.findById(eventId)
+        // Both id schemes narrow the partitions to scan: legacy ids start with the trade ref (whose date
+        // range is in trade_state), ULIDs carry their creation time. Only legacy ids also name the shard.
+        Optional<TradeEvent> event = LegacyIdGenerator.tradeRefOf(eventId)
+                .flatMap(tradeRef -> shardRouter.read(shardRouter.shardOf(tradeRef), () -> stateRepository.findById(tradeRef)
+                        .filter(s -> s.getFirstTradingDate() != null && s.getTradingDate() != null)
+                        .flatMap(s -> repository.findByEventIdAndTradingDateBetween(eventId, s.getFirstTradingDate(), s.getTradingDate()))))
+                .or(() -> Ulid.timestampOf(eventId).flatMap(millis -> {
+                    LocalDate created = Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+                    return firstFound(shardRouter.scatter(shard ->
+                            repository.findByEventIdAndTradingDateBetween(eventId, created.minusDays(1), created.plusDays(1))));
+                }));
+        return event.or(() -> firstFound(shardRouter.scatter(shard -> repository.findById(eventId))))
                 .orElseThrow(() -> new RuntimeException("Trade not found: " + eventId));
     }
 
-    // --- Helpers ---
+    @Override
+    public CursorPage<TradeEvent> getTradeHistory(String tradeRef, String cursor, int size) {
+        return historyPages.record(() -> cache.getPage("history", tradeRef, cursor, size,
+                () -> loadHistory(tradeRef, cursor, size)));
+    }
 
-    private TradeAggregate buildAggregate(List<TradeEvent> events) {
-        TradeAggregate agg = new TradeAggregate();
-        agg.setHistory(events);
-
-        // Assumes list is sorted DESC by time, so index 0 is latest
-        TradeEvent latest = events.get(0);
-        agg.setLatestEvent(latest);
-        agg.setTradeRef(extractTradeRef(latest));
-
-        // Derive Status
-        switch (latest.getEventType()) {
-            case "TRADE_CANCELLED":
-                agg.setStatus("CANCELLED");
-                agg.setModifiable(false);
-                break;
-            case "TRADE_VERIFIED":
-                agg.setStatus("VERIFIED");
-                agg.setModifiable(true);
-                break;
-            default:
-                agg.setStatus("LIVE");
-                agg.setModifiable(true);
+    @Override
+    @Transactional // Primary: live feed deltas must include the commit that triggered them
+    public List<TradeSummary> getTradesByRef(Collection<String> tradeRefs) {
+        if (tradeRefs.isEmpty()) return List.of();
+        return toSummaries(loadStates(new ArrayList<>(tradeRefs)));
+    }
+
+    // --- Loaders ---
+
+    private PageResult<TradeSummary> loadDashboard(String searchQuery, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(size, 1), BLOTTER_ORDER);
+
+        // Prefer the in-memory trigram index for searches it can answer
+        if (searchQuery != null && !searchQuery.isBlank()) {
+            int offset = (int) Math.min(pageRequest.getOffset(), Integer.MAX_VALUE);
+            Optional<TradeSearchIndex.Hits> hits = indexSearchPhase.record(
+                    () -> searchService.search(searchQuery, offset, pageRequest.getPageSize()));
+            if (hits.isPresent()) {
+                int total = hits.get().total();
+                int totalPages = (int) Math.ceil((double) total / pageRequest.getPageSize());
+                return new PageResult<>(toSummaries(loadStates(hits.get().tradeRefs())), page, totalPages, total);
+            }
         }
 
-        // Extract Business Data
-        try {
-            JsonNode node = objectMapper.readTree(latest.getData());
-            agg.setCounterparty(node.has("counterparty") ? node.get("counterparty").asText() : "UNKNOWN");
-            agg.setNotional(node.has("notional_amount") ? node.get("notional_amount").asDouble() : 0.0);
-        } catch (Exception e) {
-            agg.setCounterparty("ERROR");
-            agg.setNotional(0.0);
+        // Page over the projection (ORDER BY/LIMIT on idx_trade_state_latest); sharded, each shard's first
+        // offset + size rows are merged and the offset skipped
+        String pattern = searchQuery != null && !searchQuery.isBlank() ? likePattern(searchQuery) : null;
+        int offset = (int) Math.min(pageRequest.getOffset(), Integer.MAX_VALUE - pageRequest.getPageSize());
+        PageRequest shardRequest = shardRouter.isSharded()
+                ? PageRequest.of(0, offset + pageRequest.getPageSize(), BLOTTER_ORDER) : pageRequest;
+        List<Page<TradeState>> pages = stateQueryPhase.record(() -> shardRouter.scatter(shard -> pattern != null
+                ? stateRepository.search(pattern, shardRequest)
+                : stateRepository.findAll(shardRequest)));
+
+        List<TradeState> states;
+        if (pages.size() == 1) {
+            states = pages.get(0).getContent();
+        } else {
+            List<TradeState> merged = KWayMerge.merge(pages.stream().map(Page::getContent).toList(),
+                    TradeState.NEWEST_FIRST, offset + pageRequest.getPageSize());
+            states = merged.subList(Math.min(offset, merged.size()), merged.size());
         }
+        stateRows.record(states.size());
 
-        return agg;
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        int totalPages = (int) Math.ceil((double) total / pageRequest.getPageSize());
+        return new PageResult<>(toSummaries(states), page, totalPages, (int) total);
     }
 
-    private String extractTradeRef(TradeEvent event) {
+    private CursorPage<TradeSummary> loadDashboardAfter(String searchQuery, String cursor, int size) {
+        int limit = Math.max(size, 1);
+        boolean search = searchQuery != null && !searchQuery.isBlank();
+
+        // Fetch one extra row to know whether another page exists (per shard, then merged)
+        String pattern = search ? likePattern(searchQuery) : null;
+        Cursor key = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
+        Timer.Sample sample = Timer.start();
+        List<List<TradeState>> pages = shardRouter.scatter(shard -> {
+            if (key == null) {
+                return search
+                        ? stateRepository.searchFirstPage(pattern, limit + 1)
+                        : stateRepository.findFirstPage(limit + 1);
+            }
+            return search
+                    ? stateRepository.searchPageAfter(pattern, key.eventTime(), key.id(), limit + 1)
+                    : stateRepository.findPageAfter(key.eventTime(), key.id(), limit + 1);
+        });
+        List<TradeState> states = KWayMerge.merge(pages, TradeState.NEWEST_FIRST, limit + 1);
+        sample.stop(stateQueryPhase);
+        stateRows.record(states.size());
+
+        String nextCursor = null;
+        if (states.size() > limit) {
+            states = states.subList(0, limit);
+            TradeState last = states.get(limit - 1);
+            nextCursor = encodeCursor(last.getLatestEventTime(), last.getTradeRef());
+        }
+
+        return new CursorPage<>(toSummaries(states), nextCursor, limit);
+    }
+
+    private CursorPage<TradeEvent> loadHistory(String tradeRef, String cursor, int size) {
+        return shardRouter.read(shardRouter.shardOf(tradeRef), () -> loadShardHistory(tradeRef, cursor, size));
+    }
+
+    private CursorPage<TradeEvent> loadShardHistory(String tradeRef, String cursor, int size) {
+        TradeState state = stateRepository.findById(tradeRef)
+                .orElseThrow(() -> new RuntimeException("Trade not found: " + tradeRef));
+        int limit = Math.max(size, 1);
+
+        // The trade's date range prunes the scan to the event partitions it actually spans
+        LocalDate from = state.getFirstTradingDate() != null ? state.getFirstTradingDate() : NO_LOWER_BOUND;
+        LocalDate to = state.getTradingDate() != null ? state.getTradingDate() : NO_UPPER_BOUND;
+
+        Timer.Sample sample = Timer.start();
+        List<TradeEvent> events;
+        if (cursor == null || cursor.isBlank()) {
+            events = repository.findHistoryFirstPage(tradeRef, from, to, limit + 1);
+        } else {
+            Cursor key = decodeCursor(cursor);
+            events = repository.findHistoryPageAfter(tradeRef, from, to, key.eventTime(), key.id(), limit + 1);
+        }
+        sample.stop(historyQueryPhase);
+        eventRows.record(events.size());
+
+        String nextCursor = null;
+        if (events.size() > limit) {
+            events = events.subList(0, limit);
+            TradeEvent last = events.get(limit - 1);
+            nextCursor = encodeCursor(last.getEventTime(), last.getEventId());
+        }
+
+        return new CursorPage<>(events, nextCursor, limit);
+    }
+
+    // --- Helpers ---
+
+    private Timer dashboardTimer(String view) {
+        return Timer.builder("trade.read.dashboard")
+                .description("Blotter page requests, including cache hits")
+                .tag("view", view)
+                .register(meterRegistry);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("trade.read.phase")
+                .description("Time spent per blotter read phase (cache misses only)")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary rowsSummary(String table) {
+        return DistributionSummary.builder("trade.read.rows")
+                .description("Rows fetched per blotter query")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    private void streamRows(String sql, List<Object> params, Consumer<TradeState> sink) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, rs -> {
+            sink.accept(mapState(rs));
+        });
+    }
+
+    // One chunk of index hits, in hit order
+    private List<TradeState> streamStates(List<String> tradeRefs) {
+        Map<String, TradeState> byRef = new ConcurrentHashMap<>();
+        SortedMap<Integer, List<String>> byShard = shardRouter.byShard(tradeRefs, ref -> ref);
+        shardRouter.scatter(shard -> {
+            List<String> refs = byShard.get(shard);
+            if (refs == null) return null;
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(STREAM_SELECT + " WHERE trade_ref = ANY(?)");
+                ps.setArray(1, con.createArrayOf("varchar", refs.toArray()));
+                return ps;
+            }, rs -> {
+                TradeState state = mapState(rs);
+                byRef.put(state.getTradeRef(), state);
+            });
+            return null;
+        });
+        stateRows.record(byRef.size());
+        return tradeRefs.stream().map(byRef::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private static TradeState mapState(ResultSet rs) throws SQLException {
+        TradeState state = new TradeState();
+        state.setTradeRef(rs.getString("trade_ref"));
+        state.setStatus(rs.getString("status"));
+        state.setSubject(rs.getString("subject"));
+        state.setSourceSystem(rs.getString("source_system"));
+        state.setCounterparty(rs.getString("counterparty"));
+        state.setNotional(rs.getObject("notional", Double.class));
+        state.setTradingDate(rs.getObject("trading_date", LocalDate.class));
+        state.setLatestEventId(rs.getString("latest_event_id"));
+        state.setLatestEventType(rs.getString("latest_event_type"));
+        state.setLatestEventTime(rs.getObject("latest_event_time", LocalDateTime.class));
+        state.setEventCount(rs.getInt("event_count"));
+        return state;
+    }
+
+    // Projection rows for the given refs, kept in the order the index returned them
+    private List<TradeState> loadStates(List<String> tradeRefs) {
+        SortedMap<Integer, List<String>> byShard = shardRouter.byShard(tradeRefs, ref -> ref);
+        List<TradeState> rows = stateQueryPhase.record(() -> shardRouter.scatter(shard -> byShard.containsKey(shard)
+                        ? stateRepository.findAllById(byShard.get(shard)) : List.<TradeState>of())
+                .stream().flatMap(List::stream).collect(Collectors.toList()));
+        stateRows.record(rows.size());
+        Map<String, TradeState> byRef = rows.stream()
+                .collect(Collectors.toMap(TradeState::getTradeRef, s -> s));
+        return tradeRefs.stream().map(byRef::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private static <T> Optional<T> firstFound(List<Optional<T>> perShard) {
+        return perShard.stream().flatMap(Optional::stream).findFirst();
+    }
+
+    private List<TradeSummary> toSummaries(List<TradeState> states) {
+        return states.stream().map(TradeReadServiceImpl::toSummary).collect(Collectors.toList());
+    }
+
+    // Package-private for the JMH read-path benchmarks (src/jmh)
+    static TradeSummary toSummary(TradeState state) {
+        TradeSummary summary = new TradeSummary();
+        summary.setTradeRef(state.getTradeRef());
+        summary.setSubject(state.getSubject());
+        summary.setSourceSystem(state.getSourceSystem());
+        summary.setTradingDate(state.getTradingDate());
+        summary.setLatestEventId(state.getLatestEventId());
+        summary.setLatestEventType(state.getLatestEventType());
+        summary.setLatestEventTime(state.getLatestEventTime());
+        summary.setEventCount(state.getEventCount());
+
+        summary.setStatus(state.getStatus());
+        summary.setModifiable(!"CANCELLED".equals(state.getStatus()));
+        summary.setCounterparty(state.getCounterparty() != null ? state.getCounterparty() : "UNKNOWN");
+        summary.setNotional(state.getNotional() != null ? state.getNotional() : 0.0);
+        return summary;
+    }
+
+    private String likePattern(String searchQuery) {
+        String escaped = searchQuery.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    // Cursor = base64url("<event_time>|<key>") of the last row on the page (trade ref or event id)
+    private String encodeCursor(LocalDateTime eventTime, String id) {
+        String key = eventTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Cursor(LocalDateTime eventTime, String id) {}
+
+    // Rejects anything encodeCursor could not have produced with IllegalArgumentException (400)
+    private Cursor decodeCursor(String cursor) {
         try {
-            JsonNode node = objectMapper.readTree(event.getData());
-            if (node.has("trade_ref")) return node.get("trade_ref").asText();
-        } catch (Exception e) {}
-        return event.getEventId().split(":")[0];
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = key.indexOf('|');
+            if (sep < 0 || sep == key.length() - 1) throw new IllegalArgumentException();
+            return new Cursor(LocalDateTime.parse(key.substring(0, sep)), key.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.trading.app.service;
+
+import com.trading.app.search.TradeSearchIndex;
+
+import java.util.Optional;
+
+public interface TradeSearchService {
+    // Empty when the index cannot answer (disabled, still building, or query too short)
+    Optional<TradeSearchIndex.Hits> search(String query, int offset, int limit);
+}
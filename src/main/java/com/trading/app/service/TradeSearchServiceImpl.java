@@ -0,0 +1,243 @@
+package com.trading.app.service.impl;
+
+import com.trading.app.event.TradeEventsCommitted;
+import com.trading.app.model.TradeEvent;
+import com.trading.app.model.TradeState;
+import com.trading.app.search.TradeIndexSnapshot;
+import com.trading.app.search.TradeSearchIndex;
+import com.trading.app.service.TradeSearchService;
+import com.trading.app.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class TradeSearchServiceImpl implements TradeSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeSearchServiceImpl.class);
+
+    private static final String LOAD_SQL =
+            "SELECT trade_ref, counterparty, subject, status, latest_event_time FROM trade_state " +
+            "ORDER BY latest_event_time, trade_ref";
+
+    // One statement, so the sequence value and the rows come from the same database snapshot
+    private static final String SNAPSHOT_SQL =
+            "SELECT trade_ref, counterparty, subject, status, latest_event_time, " +
+            "(SELECT last_seq FROM event_log_sequence WHERE id = 1) AS last_seq FROM trade_state " +
+            "ORDER BY latest_event_time, trade_ref";
+
+    // LOAD_SQL's order, for merging the shards' streams
+    private record IndexRow(String tradeRef, String counterparty, String subject, String status, long sortKey) {}
+
+    private static final Comparator<IndexRow> OLDEST_FIRST =
+            Comparator.comparingLong(IndexRow::sortKey).thenComparing(IndexRow::tradeRef);
+
+    private static final String CATCH_UP_SQL =
+            "SELECT trade_ref, counterparty, subject, event_type, event_time FROM trading_pipeline_tracker " +
+            "WHERE commit_seq > ? ORDER BY commit_seq";
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    // Roughly 300 bytes of heap per trade with ULID refs (~300 MB per million); beyond this the index is
+    // dropped and SQL search takes over
+    @Value("${app.search.index.max-trades:1500000}")
+    private int maxTrades;
+
+    @Value("${app.search.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${app.search.snapshot.path:${java.io.tmpdir}/trading-app/trade-index.snap}")
+    private Path snapshotPath;
+
+    private volatile long snapshotSeq = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    private volatile TradeSearchIndex index = new TradeSearchIndex();
+    private volatile boolean ready;
+
+    @Override
+    public Optional<TradeSearchIndex.Hits> search(String query, int offset, int limit) {
+        TradeSearchIndex current = index;
+        if (!ready || current == null) return Optional.empty();
+        return Optional.ofNullable(current.search(query, offset, limit));
+    }
+
+    // Built in the background from the trade_state projection; SQL search serves queries until it is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (!enabled) return;
+
+        Thread builder = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                String source = loadSnapshot() ? "snapshot" : "trade_state";
+                if (source.equals("trade_state")) {
+                    // Every shard streams in parallel, merged oldest first: doc ids must follow update order
+                    // for hits to come back newest first
+                    shardRouter.<IndexRow>scatterMerged(OLDEST_FIRST, (shard, rows) -> query(LOAD_SQL, rs ->
+                            rows.accept(new IndexRow(rs.getString("trade_ref"), rs.getString("counterparty"),
+                                    rs.getString("subject"), rs.getString("status"),
+                                    sortKey(rs.getTimestamp("latest_event_time").toLocalDateTime())))), Long.MAX_VALUE, row -> {
+                        TradeSearchIndex current = index;
+                        if (current == null) return;
+                        current.upsert(row.tradeRef(), row.counterparty(), row.subject(), row.status(), row.sortKey());
+                        checkCapacity(current);
+                    });
+                }
+
+                TradeSearchIndex current = index;
+                if (current == null) return;
+                ready = true;
+                logger.info("Search index built from {}: {} trades, ~{} KB in {} ms ({} ms after JVM start)", source,
+                        current.size(), current.memoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000,
+                        ManagementFactory.getRuntimeMXBean().getUptime());
+            } catch (RuntimeException e) {
+                logger.error("Search index build failed; falling back to SQL search", e);
+            }
+        }, "trade-search-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    // Applied while building too: upsert keeps whichever version of a trade is newer
+    // Index first, so the log version only moves once search results reflect the commit
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onCommitted(TradeEventsCommitted committed) {
+        TradeSearchIndex current = index;
+        if (!enabled || current == null) return;
+        for (TradeEvent event : committed.events()) {
+            current.upsert(event.getTradeRef(), event.getCounterparty(), event.getSubject(),
+                    TradeState.statusFor(event.getEventType()), sortKey(event.getEventTime()));
+        }
+        checkCapacity(current);
+    }
+
+    // Seeds the index from the last snapshot and replays the events committed since it was taken.
+    // False means the caller should do the full trade_state build instead.
+    private boolean loadSnapshot() {
+        TradeSearchIndex target = index;
+        // The header holds one log position; sharded there is one per shard, so the index is always rebuilt
+        if (!snapshotEnabled || shardRouter.isSharded() || target == null || !Files.isRegularFile(snapshotPath)) return false;
+        try {
+            long start = System.nanoTime();
+            TradeIndexSnapshot.Header header = TradeIndexSnapshot.load(snapshotPath, target);
+            long mapped = (System.nanoTime() - start) / 1_000_000;
+            checkCapacity(target);
+
+            // A replay longer than the snapshot itself costs more than a rebuild; a snapshot ahead of
+            // the log belongs to another database
+            long behind = currentSeq() - header.lastSeq();
+            if (behind < 0 || behind > header.trades()) {
+                logger.info("Search index snapshot at seq {} is {} events from the log; rebuilding", header.lastSeq(), behind);
+                index = new TradeSearchIndex();
+                return false;
+            }
+
+            long[] replayed = new long[1];
+            query(CATCH_UP_SQL, ps -> ps.setLong(1, header.lastSeq()), rs -> {
+                TradeSearchIndex current = index;
+                if (current == null) return;
+                current.upsert(rs.getString("trade_ref"), rs.getString("counterparty"), rs.getString("subject"),
+                        TradeState.statusFor(rs.getString("event_type")), sortKey(rs.getTimestamp("event_time").toLocalDateTime()));
+                checkCapacity(current);
+                replayed[0]++;
+            });
+            if (behind == 0) snapshotSeq = header.lastSeq();
+            logger.info("Search index snapshot loaded: {} trades at seq {} in {} ms, {} events replayed",
+                    header.trades(), header.lastSeq(), mapped, replayed[0]);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Search index snapshot unusable; rebuilding from trade_state", e);
+            if (index != null) index = new TradeSearchIndex();
+            return false;
+        }
+    }
+
+    // Rewritten from trade_state rather than the live index, so it never captures a half-applied commit
+    @Scheduled(initialDelayString = "${app.search.snapshot.interval:PT10M}", fixedDelayString = "${app.search.snapshot.interval:PT10M}")
+    public void writeSnapshot() {
+        if (!enabled || !snapshotEnabled || shardRouter.isSharded() || !ready || index == null) return;
+        if (currentSeq() == snapshotSeq) return;
+
+        long start = System.nanoTime();
+        long[] lastSeq = {-1};
+        try (TradeIndexSnapshot.Writer writer = new TradeIndexSnapshot.Writer(snapshotPath)) {
+            query(SNAPSHOT_SQL, rs -> {
+                lastSeq[0] = rs.getLong("last_seq");
+                try {
+                    writer.add(rs.getString("trade_ref"), rs.getString("counterparty"), rs.getString("subject"),
+                            rs.getString("status"), sortKey(rs.getTimestamp("latest_event_time").toLocalDateTime()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (lastSeq[0] < 0) return;
+
+            TradeIndexSnapshot.Header header = writer.commit(lastSeq[0]);
+            snapshotSeq = header.lastSeq();
+            logger.info("Search index snapshot written: {} trades at seq {} ({} KB) in {} ms", header.trades(),
+                    header.lastSeq(), Files.size(snapshotPath) / 1024, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Search index snapshot write to {} failed", snapshotPath, e);
+        }
+    }
+
+    private void query(String sql, RowCallbackHandler handler) {
+        query(sql, ps -> {}, handler);
+    }
+
+    private void query(String sql, PreparedStatementSetter params, RowCallbackHandler handler) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(5000);
+            params.setValues(ps);
+            return ps;
+        }, handler));
+    }
+
+    private long currentSeq() {
+        Long seq = jdbcTemplate.queryForObject("SELECT last_seq FROM event_log_sequence WHERE id = 1", Long.class);
+        return seq == null ? 0 : seq;
+    }
+
+    private void checkCapacity(TradeSearchIndex current) {
+        if (current.size() <= maxTrades || index == null) return;
+        index = null;
+        ready = false;
+        logger.warn("Search index exceeded {} trades; dropped in favour of SQL search", maxTrades);
+    }
+
+    private long sortKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+}
@@ -1,9 +1,35 @@
 package com.trading.app.service;
 
+import com.trading.app.dto.BatchResult;
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.dto.SubmissionStatus;
 import com.trading.app.dto.TradeSubmission;
+import com.trading.app.model.TradeEvent;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public interface TradeWriteService {
-    void handleSubmission(TradeSubmission submission);
-    void cancelTrade(String tradeId);
-    void verifyTrade(String tradeId);
-}
\ No newline at end of file
+    // idempotencyKey may be null; a repeated key returns the original event id (replayed) without writing
+    SubmissionStatus handleSubmission(TradeSubmission submission, String idempotencyKey);
+    BatchResult handleBatch(Iterator<TradeSubmission> submissions);
+    SubmissionStatus cancelTrade(String tradeId, String idempotencyKey);
+    SubmissionStatus verifyTrade(String tradeId, String idempotencyKey);
+
+    // Two-phase API for the async ingestion pipeline: build the event now, persist it later in a group commit
+    // (the key, if any, only places a new trade on its shard; it is claimed by persistAll)
+    TradeEvent prepareSubmission(TradeSubmission submission, String idempotencyKey);
+    TradeEvent prepareCancel(String tradeId);
+    TradeEvent prepareVerify(String tradeId);
+    // idempotencyKeys: event id -> key. Returns event id -> original event id for events dropped as repeats.
+    // Atomic per shard: callers wanting all-or-nothing pass events of one shard (ShardRouter.byShard).
+    Map<String, String> persistAll(List<TradeEvent> events, Map<String, String> idempotencyKeys);
+
+    // Bulk lifecycle by filter, action VERIFY or CANCEL: trades still eligible (LIVE; LIVE or VERIFIED for cancel),
+    // and one transaction appending events for the next chunk of them after afterRef, leaving out trades changed after
+    // asOf (empty once none remain). Both work on one shard: a job walks the shards in turn.
+    TradeProjectionService.Matches findBulkTargets(int shard, String action, BulkFilter filter);
+    List<TradeEvent> applyBulkChunk(int shard, String action, BulkFilter filter, String afterRef, LocalDateTime asOf, int limit);
+}
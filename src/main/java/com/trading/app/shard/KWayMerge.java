@@ -0,0 +1,64 @@
+package com.trading.app.shard;
+
+import java.util.*;
+
+/**
+ * Merges per-shard results that are each already in the wanted order, looking only at the head of
+ * every source. Each source's own order is kept even where it disagrees with the comparator (the change
+ * feed relies on this: per shard it is in commit order, merged by event time), and ties go to the
+ * lower source index.
+ */
+public final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        return new Iterator<>() {
+            private final PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                    Comparator.<Head<T>, T>comparing(Head::value, order).thenComparingInt(Head::source));
+
+            {
+                for (int i = 0; i < sources.size(); i++) advance(i);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) throw new NoSuchElementException();
+                advance(head.source());
+                return head.value();
+            }
+
+            private void advance(int source) {
+                Iterator<? extends T> it = sources.get(source);
+                if (it.hasNext()) heads.add(new Head<>(it.next(), source));
+            }
+        };
+    }
+
+    /** The first limit elements of the merged lists. */
+    public static <T> List<T> merge(List<? extends List<? extends T>> sources, Comparator<? super T> order, int limit) {
+        if (sources.size() == 1) {
+            List<? extends T> only = sources.get(0);
+            return new ArrayList<>(only.subList(0, Math.min(limit, only.size())));
+        }
+        List<Iterator<? extends T>> iterators = new ArrayList<>(sources.size());
+        for (List<? extends T> source : sources) {
+            iterators.add(source.iterator());
+        }
+        Iterator<T> merged = merge(iterators, order);
+        List<T> result = new ArrayList<>();
+        while (result.size() < limit && merged.hasNext()) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    private record Head<T>(T value, int source) {}
+}
@@ -0,0 +1,32 @@
+package com.trading.app.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard this thread's transactions connect to (read by ShardRoutingDataSource when a connection is
+ * first used). Unbound threads use the home shard, which is also the only one while sharding is off.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? ShardRouter.HOME : shard;
+    }
+
+    /** Runs work bound to the given shard, restoring the previous binding afterwards. */
+    public static <T> T on(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.trading.app.shard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Places trades on shards and runs work against them (app.shards.enabled=true, pools from ShardConfig).
+ *
+ * A trade lives on shardOf(tradeRef): every event, its trade_state row and the idempotency keys its
+ * writes claimed. Writes run in one transaction on one shard; blotter, search, export and the change feed
+ * query every shard in parallel (scatter) and merge the results. Shard 0 is the home database: the one
+ * used when sharding is off, so a single-shard setup runs everything inline exactly as before.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardRouter {
+
+    public static final int HOME = 0;
+
+    // Rows buffered per shard while a merged stream waits on a slower shard
+    private static final int STREAM_BUFFER = 1024;
+
+    // How often a shard blocked on a full buffer checks whether the merge gave up
+    private static final long CANCEL_CHECK_MS = 100;
+
+    private static final Object END = new Object();
+
+    @Value("${app.shards.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.shards.urls:}")
+    private List<String> urls;
+
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    private int shardCount = 1;
+    private TransactionTemplate writeTemplate;
+    private TransactionTemplate readTemplate;
+    private ExecutorService scatterExecutor;
+    private Timer scatterTimer;
+    private final List<Counter> writes = new ArrayList<>();
+
+    private record Failure(Throwable error) {}
+
+    @PostConstruct
+    void start() {
+        shardCount = enabled ? Math.max(1, urls.size()) : 1;
+
+        writeTemplate = new TransactionTemplate(transactionManager);
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (shardCount > 1) {
+            // A shard bound to a transaction that already holds another shard's connection would be ignored
+            writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        Gauge.builder("app.shards.count", this, ShardRouter::count)
+                .description("Databases the event store is spread over")
+                .register(meterRegistry);
+        scatterTimer = Timer.builder("app.shards.scatter")
+                .description("Reads fanned out to every shard, until the slowest shard answered")
+                .register(meterRegistry);
+        for (int shard = 0; shard < shardCount; shard++) {
+            writes.add(Counter.builder("app.shards.writes")
+                    .description("Write transactions per shard")
+                    .tag("shard", String.valueOf(shard))
+                    .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scatterExecutor != null) scatterExecutor.shutdownNow();
+    }
+
+    public int count() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(String tradeRef) {
+        return shardOf(tradeRef, shardCount);
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach) of the key's FNV-1a hash. Going from n to n+1 shards moves
+     * only the 1/(n+1) of trades that now belong on the new shard. Stored trades are placed by this
+     * function, so it must never change.
+     */
+    public static int shardOf(String key, int shards) {
+        if (shards <= 1) return HOME;
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // FNV alone leaves similar refs (ULIDs from the same millisecond) too close in the high bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+
+        long bucket = -1;
+        long next = 0;
+        while (next < shards) {
+            bucket = next;
+            hash = hash * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((hash >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    /** Groups items by the shard of their trade ref, keeping their order within each shard. */
+    public <T> SortedMap<Integer, List<T>> byShard(Collection<T> items, Function<T, String> tradeRef) {
+        SortedMap<Integer, List<T>> groups = new TreeMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardOf(tradeRef.apply(item)), s -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /** Runs work in a transaction on one shard. */
+    public <T> T write(int shard, Supplier<T> work) {
+        writes.get(shard).increment();
+        return ShardContext.on(shard, () -> writeTemplate.execute(status -> work.get()));
+    }
+
+    /** Runs reads against one shard, in a read-only transaction of their own when sharded. */
+    public <T> T read(int shard, Supplier<T> work) {
+        if (!isSharded()) return work.get();
+        return ShardContext.on(shard, () -> readTemplate.execute(status -> work.get()));
+    }
+
+    /** Runs work once per shard in turn, bound to that shard; work manages its own transactions. */
+    public <T> List<T> onEach(IntFunction<T> work) {
+        List<T> results = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            results.add(ShardContext.on(current, () -> work.apply(current)));
+        }
+        return results;
+    }
+
+    /**
+     * Runs reads against every shard in parallel, each in a read-only transaction of its own, and returns
+     * the results in shard order. A single shard runs inline in the caller's transaction.
+     */
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (!isSharded()) return Collections.singletonList(work.apply(HOME));
+
+        long start = System.nanoTime();
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                int current = shard;
+                futures.add(scatterExecutor.submit(() -> read(current, () -> work.apply(current))));
+            }
+            List<T> results = new ArrayList<>(shardCount);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for shards");
+        } finally {
+            // Never interrupts: an interrupted class load closes the application jar for every thread
+            futures.forEach(f -> f.cancel(false));
+            scatterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Streams the first limit rows of every shard's rows merged into sink. query(shard, rows) pushes one
+     * shard's rows, already in that order; each shard runs on its own thread into a small buffer, so memory
+     * stays flat and the merge only waits for the slowest shard's next row. A single shard streams straight
+     * to sink (its query applies the limit itself).
+     */
+    public <T> void scatterMerged(Comparator<? super T> order, BiConsumer<Integer, Consumer<T>> query, long limit,
+                                  Consumer<T> sink) {
+        if (!isSharded()) {
+            query.accept(HOME, sink);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Iterator<T>> sources = new ArrayList<>(shardCount);
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                int current = shard;
+                BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(STREAM_BUFFER);
+                sources.add(drain(buffer));
+                scatterExecutor.execute(() -> {
+                    Object last = END;
+                    try {
+                        read(current, () -> {
+                            query.accept(current, row -> put(buffer, row, cancelled));
+                            return null;
+                        });
+                    } catch (RuntimeException | Error e) {
+                        last = new Failure(e);
+                    }
+                    try {
+                        put(buffer, last, cancelled);
+                    } catch (CancellationException e) {
+                        // Nobody is reading any more
+                    }
+                });
+            }
+            Iterator<T> merged = KWayMerge.merge(sources, order);
+            for (long rows = 0; rows < limit && merged.hasNext(); rows++) {
+                sink.accept(merged.next());
+            }
+        } finally {
+            // Shards still streaming (limit reached, client gone, another shard failed) stop at their next row
+            cancelled.set(true);
+            scatterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // --- Helpers ---
+
+    // Throwing out of the row callback closes the shard's statement and rolls its transaction back
+    private static void put(BlockingQueue<Object> buffer, Object row, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (buffer.offer(row, CANCEL_CHECK_MS, TimeUnit.MILLISECONDS)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new CancellationException("Shard stream cancelled");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Iterator<T> drain(BlockingQueue<Object> buffer) {
+        return new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) next = take(buffer);
+                return next != END;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Object row = next;
+                next = null;
+                return (T) row;
+            }
+        };
+    }
+
+    private static Object take(BlockingQueue<Object> buffer) {
+        Object row;
+        try {
+            row = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for shards");
+        }
+        if (row instanceof Failure failure) throw rethrow(failure.error());
+        return row;
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException e) return e;
+        if (error instanceof Error e) throw e;
+        return new IllegalStateException(error);
+    }
+}
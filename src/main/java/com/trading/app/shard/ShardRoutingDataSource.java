@@ -0,0 +1,53 @@
+package com.trading.app.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One pool per shard, picked by the shard bound to the calling thread (ShardContext).
+ *
+ * Like ReplicaRoutingDataSource this must sit behind a LazyConnectionDataSourceProxy: a transaction
+ * only takes its connection at the first statement, so the shard can be bound after it begins.
+ * A shard may be wrapped (BoundedDataSource in virtual-thread mode) as long as it unwraps to its pool.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<? extends DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardRouter.HOME));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        for (DataSource shard : shards) {
+            shard.unwrap(HikariDataSource.class).close();
+        }
+    }
+}
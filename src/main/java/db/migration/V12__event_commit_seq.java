@@ -0,0 +1,98 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Adds commit_seq, the monotonic position of each event in commit order (GET /api/events?after=...),
+ * numbers existing history in event time order and creates the counter writers take it from.
+ * Runs outside a single transaction like V6, committing every chunk: chunks are keyset ranges of
+ * (event_time, event_id) over a temporary index, each numbered on from the last seq of the one before.
+ * Every step is repeatable, so a migration that failed part way can simply be rerun.
+ */
+public class V12__event_commit_seq extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V12__event_commit_seq.class);
+
+    private static final int CHUNK_SIZE = 5000;
+
+    // Numbers the next chunk and returns its last (event_time, event_id) and seq; no row past the end
+    private static final String NUMBER_SQL =
+            "WITH chunk AS (SELECT event_id, trading_date, event_time, " +
+            "? + ROW_NUMBER() OVER (ORDER BY event_time, event_id) AS seq FROM (" +
+            "SELECT event_id, trading_date, event_time FROM trading_pipeline_tracker " +
+            "WHERE (event_time, event_id) > (?, ?) ORDER BY event_time, event_id LIMIT ?) ids), " +
+            "last AS (SELECT event_time, event_id, seq FROM chunk ORDER BY seq DESC LIMIT 1), " +
+            "updated AS (UPDATE trading_pipeline_tracker t SET commit_seq = c.seq FROM chunk c " +
+            "WHERE t.event_id = c.event_id AND t.trading_date = c.trading_date AND (t.event_time, t.event_id) > (?, ?) " +
+            "AND (t.event_time, t.event_id) <= ((SELECT event_time FROM last), (SELECT event_id FROM last)) RETURNING 1) " +
+            "SELECT event_time, event_id, seq FROM last";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+
+        try (Statement st = connection.createStatement()) {
+            // Nullable: rows restored from a partition archive come back without one and are not re-fed
+            st.execute("ALTER TABLE trading_pipeline_tracker ADD COLUMN IF NOT EXISTS commit_seq BIGINT");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_trading_event_time_id_v12 ON trading_pipeline_tracker (event_time, event_id)");
+
+            long seq = numberHistory(connection);
+
+            // Single-row counter. Writers take the next block with UPDATE ... RETURNING and hold the row lock
+            // until they commit, so sequence numbers become visible strictly in order and without gaps.
+            st.execute("CREATE TABLE IF NOT EXISTS event_log_sequence (id INT PRIMARY KEY, last_seq BIGINT NOT NULL)");
+            st.execute("INSERT INTO event_log_sequence (id, last_seq) VALUES (1, " + seq + ") " +
+                    "ON CONFLICT (id) DO UPDATE SET last_seq = EXCLUDED.last_seq");
+
+            // Keyset scans for the feed (per partition on Postgres, merged in order)
+            st.execute("CREATE INDEX IF NOT EXISTS idx_trading_event_commit_seq ON trading_pipeline_tracker (commit_seq)");
+            st.execute("DROP INDEX IF EXISTS idx_trading_event_time_id_v12");
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Numbers every event from 1 in (event_time, event_id) order; returns the last seq handed out
+    private long numberHistory(Connection connection) throws Exception {
+        long seq = 0;
+        long chunks = 0;
+        try (PreparedStatement ps = connection.prepareStatement(NUMBER_SQL)) {
+            // -infinity on Postgres, so the first chunk starts at the oldest event
+            LocalDateTime lastTime = LocalDateTime.MIN;
+            String lastEventId = "";
+            ps.setInt(4, CHUNK_SIZE);
+            while (true) {
+                ps.setLong(1, seq);
+                ps.setObject(2, lastTime);
+                ps.setString(3, lastEventId);
+                ps.setObject(5, lastTime);
+                ps.setString(6, lastEventId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) break;
+                    lastTime = rs.getObject(1, LocalDateTime.class);
+                    lastEventId = rs.getString(2);
+                    seq = rs.getLong(3);
+                    chunks++;
+                }
+            }
+        }
+        logger.info("Numbered {} events in {} chunks", seq, chunks);
+        return seq;
+    }
+}
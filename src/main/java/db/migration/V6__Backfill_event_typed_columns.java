@@ -0,0 +1,67 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Backfills trade_ref, counterparty, notional_amount and status from the jsonb payload.
+ * Runs outside a single transaction, committing every chunk so large tables are not locked in one go.
+ * Chunks are keyset ranges of the event_id primary key, so each one is an index range scan rather than
+ * a rescan past every row already backfilled.
+ */
+public class V6__Backfill_event_typed_columns extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V6__Backfill_event_typed_columns.class);
+
+    private static final int CHUNK_SIZE = 5000;
+
+    // Returns the chunk's last event_id (null past the end) and how many of its rows were still unfilled
+    private static final String BACKFILL_SQL =
+            "WITH chunk AS (SELECT MAX(event_id) AS last_id FROM (SELECT event_id FROM trading_pipeline_tracker " +
+            "WHERE event_id > ? ORDER BY event_id LIMIT ?) ids), " +
+            "updated AS (UPDATE trading_pipeline_tracker t SET " +
+            "trade_ref = COALESCE(t.data->>'trade_ref', " +
+            "split_part(t.event_id, ':', 1) || ':' || split_part(t.event_id, ':', 2) || ':' || split_part(t.event_id, ':', 3)), " +
+            "counterparty = t.data->>'counterparty', " +
+            "notional_amount = CASE WHEN jsonb_typeof(t.data->'notional_amount') = 'number' " +
+            "THEN (t.data->>'notional_amount')::DOUBLE PRECISION END, " +
+            "status = CASE t.event_type WHEN 'TRADE_CANCELLED' THEN 'CANCELLED' WHEN 'TRADE_VERIFIED' THEN 'VERIFIED' ELSE 'LIVE' END " +
+            "WHERE t.event_id > ? AND t.event_id <= (SELECT last_id FROM chunk) AND t.trade_ref IS NULL RETURNING 1) " +
+            "SELECT (SELECT last_id FROM chunk), (SELECT COUNT(*) FROM updated)";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+
+        long total = 0;
+        try (PreparedStatement ps = connection.prepareStatement(BACKFILL_SQL)) {
+            String lastEventId = "";
+            ps.setInt(2, CHUNK_SIZE);
+            while (lastEventId != null) {
+                ps.setString(1, lastEventId);
+                ps.setString(3, lastEventId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    lastEventId = rs.getString(1);
+                    total += rs.getLong(2);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        logger.info("Backfilled typed columns on {} events", total);
+    }
+}
@@ -0,0 +1,102 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Rebuilds trading_pipeline_tracker as a table range-partitioned by trading_date, one partition per month
+ * (plus a default partition as a safety net), and copies the existing events across.
+ *
+ * The primary key becomes (event_id, trading_date) because Postgres requires the partition key in every
+ * unique constraint. Runs in one transaction, so the event log is locked for the duration of the copy.
+ * CockroachDB has no declarative range partitioning of this kind; there the table is left as it is.
+ *
+ * Names, columns and partition DDL are spelled out here rather than taken from EventPartitions: the
+ * migration must keep doing exactly what it did when it shipped, whatever the runtime code has become.
+ */
+public class V9__Partition_event_store_by_trading_date extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V9__Partition_event_store_by_trading_date.class);
+
+    private static final String PARENT = "trading_pipeline_tracker";
+    private static final String STAGING = PARENT + "_partitioned";
+    private static final String DEFAULT_PARTITION = PARENT + "_default";
+    private static final String COLUMNS =
+            "event_id, event_type, subject, source_system, trading_date, event_time, data, " +
+            "trade_ref, counterparty, notional_amount, status";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final int MONTHS_AHEAD = 3;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (isCockroach(connection)) {
+            logger.warn("CockroachDB detected: {} stays unpartitioned", PARENT);
+            return;
+        }
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE " + STAGING + " (" +
+                    "event_id TEXT NOT NULL, " +
+                    "event_type VARCHAR(50) NOT NULL, " +
+                    "subject VARCHAR(50) NOT NULL, " +
+                    "source_system VARCHAR(50) NOT NULL, " +
+                    "trading_date DATE NOT NULL, " +
+                    "event_time TIMESTAMP NOT NULL, " +
+                    "data JSONB NOT NULL, " +
+                    "trade_ref TEXT, " +
+                    "counterparty TEXT, " +
+                    "notional_amount DOUBLE PRECISION, " +
+                    "status VARCHAR(20), " +
+                    "PRIMARY KEY (event_id, trading_date)" +
+                    ") PARTITION BY RANGE (trading_date)");
+
+            // Partition names are final already: they do not depend on the parent's name
+            YearMonth first = YearMonth.now().minusMonths(1);
+            try (ResultSet rs = st.executeQuery("SELECT MIN(trading_date) FROM " + PARENT)) {
+                Date min = rs.next() ? rs.getDate(1) : null;
+                if (min != null) first = YearMonth.from(min.toLocalDate());
+            }
+            YearMonth last = YearMonth.from(LocalDate.now()).plusMonths(MONTHS_AHEAD);
+            int partitions = 0;
+            for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+                st.execute("CREATE TABLE IF NOT EXISTS " + PARENT + "_" + month.format(PARTITION_SUFFIX) +
+                        " PARTITION OF " + STAGING + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                        month.plusMonths(1).atDay(1) + "')");
+                partitions++;
+            }
+            st.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + STAGING + " DEFAULT");
+
+            int copied = st.executeUpdate("INSERT INTO " + STAGING + " (" + COLUMNS + ") " +
+                    "SELECT " + COLUMNS + " FROM " + PARENT);
+
+            st.execute("DROP TABLE " + PARENT);
+            st.execute("ALTER TABLE " + STAGING + " RENAME TO " + PARENT);
+            st.execute("ALTER TABLE " + PARENT + " RENAME CONSTRAINT " + STAGING + "_pkey TO "
+                    + PARENT + "_pkey");
+
+            // Indexes are built after the copy; on a partitioned table they cascade to every partition
+            st.execute("CREATE INDEX idx_trading_event_trade_ref ON " + PARENT + " (trade_ref, event_time DESC)");
+            st.execute("CREATE INDEX idx_trading_data ON " + PARENT + " USING GIN (data)");
+
+            logger.info("Partitioned {}: {} monthly partitions, {} events copied", PARENT, partitions, copied);
+        }
+    }
+
+    private boolean isCockroach(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("SELECT version()")) {
+            return rs.next() && rs.getString(1).contains("CockroachDB");
+        }
+    }
+}
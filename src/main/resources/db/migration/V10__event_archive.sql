@@ -0,0 +1,15 @@
+-- ==========================================
+-- EVENT PARTITION ARCHIVE
+-- ==========================================
+
+-- One row per monthly event partition that has been archived to disk (binary COPY, gzip).
+-- restored_at is set while the partition is attached again after an on-demand restore.
+CREATE TABLE IF NOT EXISTS event_archive (
+    partition_name TEXT PRIMARY KEY,
+    range_start DATE NOT NULL,
+    range_end DATE NOT NULL,
+    file_path TEXT NOT NULL,
+    row_count BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    restored_at TIMESTAMP
+);
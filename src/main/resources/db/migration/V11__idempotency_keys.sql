@@ -0,0 +1,13 @@
+-- ==========================================
+-- IDEMPOTENCY KEYS
+-- ==========================================
+
+-- Client Idempotency-Key header -> the event its first request produced.
+-- Claimed in the same transaction as the event insert; rows older than app.idempotency.ttl are purged.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    event_id TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,49 @@
+-- ==========================================
+-- TRADE STATE PROJECTION
+-- ==========================================
+
+-- 1. One row per trade ref, maintained in the same transaction as every event insert.
+-- The dashboard pages over this table instead of regrouping the whole event log.
+CREATE TABLE IF NOT EXISTS trade_state (
+    trade_ref TEXT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    subject VARCHAR(50) NOT NULL,
+    source_system VARCHAR(50) NOT NULL,
+    counterparty TEXT,
+    notional DOUBLE PRECISION,
+    trading_date DATE NOT NULL,
+    latest_event_id TEXT NOT NULL,
+    latest_event_type VARCHAR(50) NOT NULL,
+    latest_event_time TIMESTAMP NOT NULL,
+    event_count INT NOT NULL
+);
+
+-- Blotter ordering (newest activity first) served straight from the index
+CREATE INDEX IF NOT EXISTS idx_trade_state_latest ON trade_state (latest_event_time DESC, trade_ref DESC);
+
+-- 2. Per-trade history lookups for the rows on the current page
+CREATE INDEX IF NOT EXISTS idx_trading_trade_ref ON trading_pipeline_tracker ((data->>'trade_ref'));
+
+-- 3. Backfill from the existing event log
+INSERT INTO trade_state (trade_ref, status, subject, source_system, counterparty, notional, trading_date,
+                         latest_event_id, latest_event_type, latest_event_time, event_count)
+SELECT DISTINCT ON (e.trade_ref)
+       e.trade_ref,
+       CASE e.event_type WHEN 'TRADE_CANCELLED' THEN 'CANCELLED' WHEN 'TRADE_VERIFIED' THEN 'VERIFIED' ELSE 'LIVE' END,
+       e.subject,
+       e.source_system,
+       COALESCE(e.data->>'counterparty', 'UNKNOWN'),
+       COALESCE((e.data->>'notional_amount')::DOUBLE PRECISION, 0),
+       e.trading_date,
+       e.event_id,
+       e.event_type,
+       e.event_time,
+       COUNT(*) OVER (PARTITION BY e.trade_ref)
+FROM (
+    SELECT t.*,
+           COALESCE(t.data->>'trade_ref',
+                    split_part(t.event_id, ':', 1) || ':' || split_part(t.event_id, ':', 2) || ':' || split_part(t.event_id, ':', 3)) AS trade_ref
+    FROM trading_pipeline_tracker t
+) e
+ORDER BY e.trade_ref, e.event_time DESC
+ON CONFLICT (trade_ref) DO NOTHING;
@@ -0,0 +1,12 @@
+-- ==========================================
+-- BLOTTER SEARCH INDEXES
+-- ==========================================
+
+-- 1. Trigram indexes so "contains" searches (LIKE '%q%') are answered from the index.
+-- One per searchable field, combined by the planner with a BitmapOr.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_trade_state_ref_trgm ON trade_state USING GIN (lower(trade_ref) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_trade_state_cpty_trgm ON trade_state USING GIN (lower(counterparty) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_trade_state_subject_trgm ON trade_state USING GIN (lower(subject) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_trade_state_status_trgm ON trade_state USING GIN (lower(status) gin_trgm_ops);
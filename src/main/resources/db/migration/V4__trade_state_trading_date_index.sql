@@ -0,0 +1,2 @@
+-- Date-range filters for the streamed CSV export
+CREATE INDEX IF NOT EXISTS idx_trade_state_trading_date ON trade_state (trading_date);
@@ -0,0 +1,10 @@
+-- ==========================================
+-- TYPED EVENT COLUMNS
+-- ==========================================
+
+-- Promote the payload fields every read needs out of the jsonb blob.
+-- Populated on write by the application; existing rows are backfilled by V6 in chunks.
+ALTER TABLE trading_pipeline_tracker ADD COLUMN IF NOT EXISTS trade_ref TEXT;
+ALTER TABLE trading_pipeline_tracker ADD COLUMN IF NOT EXISTS counterparty TEXT;
+ALTER TABLE trading_pipeline_tracker ADD COLUMN IF NOT EXISTS notional_amount DOUBLE PRECISION;
+ALTER TABLE trading_pipeline_tracker ADD COLUMN IF NOT EXISTS status VARCHAR(20);
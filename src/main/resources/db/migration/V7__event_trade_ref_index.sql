@@ -0,0 +1,4 @@
+-- Per-trade history lookups on the typed column (replaces the jsonb expression index from V2)
+CREATE INDEX IF NOT EXISTS idx_trading_event_trade_ref ON trading_pipeline_tracker (trade_ref, event_time DESC);
+
+DROP INDEX IF EXISTS idx_trading_trade_ref;
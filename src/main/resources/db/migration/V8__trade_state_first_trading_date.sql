@@ -0,0 +1,16 @@
+-- ==========================================
+-- TRADE DATE RANGE ON THE PROJECTION
+-- ==========================================
+
+-- trading_date holds the latest event's date; first_trading_date is the booking date.
+-- Together they bound a trade's history, so history reads can prune event partitions (V9).
+ALTER TABLE trade_state ADD COLUMN IF NOT EXISTS first_trading_date DATE;
+
+UPDATE trade_state s
+SET first_trading_date = h.first_date
+FROM (
+    SELECT trade_ref, MIN(trading_date) AS first_date
+    FROM trading_pipeline_tracker
+    GROUP BY trade_ref
+) h
+WHERE s.trade_ref = h.trade_ref;
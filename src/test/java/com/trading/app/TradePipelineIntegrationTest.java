@@ -1,25 +1,45 @@
 package com.trading.app;
 
+import com.trading.app.dto.BatchResult;
+import com.trading.app.dto.BulkFilter;
+import com.trading.app.dto.SubmissionStatus;
+import com.trading.app.dto.TradeSubmission;
 import com.trading.app.model.TradeEvent;
 import com.trading.app.repository.TradeRepository;
+import com.trading.app.service.TradeProjectionService;
+import com.trading.app.service.TradeProjectionService.Matches;
+import com.trading.app.service.TradeWriteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,6 +48,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @Testcontainers
 class TradePipelineIntegrationTest {
 
+    private static final String SERVICE_TOKEN = "test-token";
+
     // Spin up a real Postgres DB in Docker
     @Container
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
@@ -41,6 +63,12 @@ class TradePipelineIntegrationTest {
     @Autowired
     private TradeRepository tradeRepository;
 
+    @Autowired
+    private TradeWriteService tradeWriteService;
+
+    @SpyBean
+    private TradeProjectionService projectionService;
+
     // Connect Spring Boot to the Testcontainer DB
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
@@ -48,6 +76,8 @@ class TradePipelineIntegrationTest {
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "update"); // Create schema
+        registry.add("app.service.token", () -> SERVICE_TOKEN);
+        registry.add("app.bulk.max-refs", () -> 10);
     }
 
     @BeforeEach
@@ -147,4 +177,111 @@ class TradePipelineIntegrationTest {
         assertThat(csvContent).contains("TradeRef,CurrentStatus,Subject"); // Header
         assertThat(csvContent).contains("GOLDMAN_SACHS_NEW"); // Data
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSingleWriteNotBlockedByChunk() throws Exception {
+        // Hold a 1000-trade batch chunk open after its inserts, at the projection upsert (stubbed behind the
+        // transactional proxy, which would otherwise demand a transaction for the stubbing call itself)
+        CountDownLatch chunkOpen = new CountDownLatch(1);
+        CountDownLatch singleDone = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            chunkOpen.countDown();
+            singleDone.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(AopTestUtils.<TradeProjectionService>getUltimateTargetObject(projectionService)).applyAll(anyList());
+
+        CompletableFuture<BatchResult> chunk = CompletableFuture.supplyAsync(() -> tradeWriteService.handleBatch(
+                IntStream.range(0, 1000).mapToObj(i -> submission("BULK_CP")).iterator()));
+        assertThat(chunkOpen.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // A single booking commits while the chunk is still open: the commit_seq counter is only locked at its end
+        SubmissionStatus single = CompletableFuture.supplyAsync(() -> tradeWriteService.handleSubmission(submission("SINGLE_CP"), null))
+                .get(5, TimeUnit.SECONDS);
+        singleDone.countDown();
+        assertThat(chunk.get(10, TimeUnit.SECONDS).getAccepted()).isEqualTo(1000);
+
+        // Every event is stamped, and the chunk's block comes after the single write's value
+        List<TradeEvent> events = tradeRepository.findAll();
+        assertThat(events).hasSize(1001);
+        assertThat(events).extracting(TradeEvent::getCommitSeq).doesNotContainNull().doesNotHaveDuplicates();
+        long singleSeq = events.stream().filter(e -> e.getEventId().equals(single.getEventId())).findFirst().orElseThrow().getCommitSeq();
+        assertThat(events).filteredOn(e -> !e.getEventId().equals(single.getEventId()))
+                .allMatch(e -> e.getCommitSeq() > singleSeq);
+    }
+
+    @Test
+    void testBulkWalkSkipsTradesBookedMeanwhile() {
+        // A legacy-format ref sorts above every ULID, so the newest match is not the highest ref
+        String legacyRef = "VANILLA_SWAPTION:INTERNAL_UI:5f3a9c01";
+        tradeWriteService.persistAll(List.of(new TradeEvent(legacyRef + ":BOOK", "TRADE_BOOKED", "VANILLA_SWAPTION",
+                "INTERNAL_UI", LocalDate.now(), LocalDateTime.now(),
+                "{\"trade_ref\":\"" + legacyRef + "\",\"counterparty\":\"MIXED_REFS_CP\",\"notional_amount\":1000000.0,\"status\":\"LIVE\"}",
+                legacyRef, "MIXED_REFS_CP", 1_000_000.0, "LIVE")), Map.of());
+        String ulidRef = tradeRefOf(tradeWriteService.handleSubmission(submission("MIXED_REFS_CP"), null));
+
+        BulkFilter filter = new BulkFilter("MIXED_REFS_CP", null, null, null, null, null);
+        Matches targets = tradeWriteService.findBulkTargets(0, "VERIFY", filter);
+        assertThat(targets.trades()).isEqualTo(2);
+
+        // Booked after the job counted its targets, with a ULID ref that sorts below the legacy one
+        String bookedMeanwhile = tradeRefOf(tradeWriteService.handleSubmission(submission("MIXED_REFS_CP"), null));
+        assertThat(bookedMeanwhile).isLessThan(legacyRef);
+
+        // Walk one trade per chunk, as a job does
+        List<String> verified = new ArrayList<>();
+        String afterRef = null;
+        while (true) {
+            List<TradeEvent> chunk = tradeWriteService.applyBulkChunk(0, "VERIFY", filter, afterRef, targets.latestEventTime(), 1);
+            if (chunk.isEmpty()) break;
+            afterRef = chunk.get(0).getTradeRef();
+            verified.add(afterRef);
+        }
+        assertThat(verified).containsExactly(ulidRef, legacyRef);
+    }
+
+    @Test
+    void testApiClientErrorsAreBadRequest() throws Exception {
+        // An empty bulk filter would select the whole book
+        mockMvc.perform(post("/api/trades/bulk/verify")
+                        .header("X-Service-Token", SERVICE_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(containsString("at least one filter field")));
+        mockMvc.perform(post("/api/trades/bulk/cancel")
+                        .header("X-Service-Token", SERVICE_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(IntStream.range(0, 11).mapToObj(i -> "\"REF" + i + "\"")
+                                .collect(Collectors.joining(",", "{\"tradeRefs\":[", "]}"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(containsString("At most 10 trade refs")));
+
+        mockMvc.perform(post("/api/trades")
+                        .header("X-Service-Token", SERVICE_TOKEN)
+                        .header("Idempotency-Key", "k".repeat(256))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"mode\":\"BOOK\",\"subject\":\"VANILLA_SWAPTION\",\"source\":\"INTERNAL_UI\","
+                                + "\"counterparty\":\"LONG_KEY_CP\",\"notional\":1000000}"))
+                .andExpect(status().isBadRequest());
+        assertThat(tradeRepository.findAll()).isEmpty();
+
+        mockMvc.perform(get("/api/trades/cursor")
+                        .header("X-Service-Token", SERVICE_TOKEN)
+                        .param("after", "bm90LWEtZGF0ZXxYWVo"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String tradeRefOf(SubmissionStatus status) {
+        return tradeRepository.findById(status.getEventId()).orElseThrow().getTradeRef();
+    }
+
+    private static TradeSubmission submission(String counterparty) {
+        TradeSubmission sub = new TradeSubmission();
+        sub.setMode("BOOK");
+        sub.setSubject("VANILLA_SWAPTION");
+        sub.setSource("INTERNAL_UI");
+        sub.setCounterparty(counterparty);
+        sub.setNotional(1_000_000L);
+        return sub;
+    }
+}
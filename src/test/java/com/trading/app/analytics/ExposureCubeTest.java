@@ -0,0 +1,103 @@
+package com.trading.app.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExposureCubeTest {
+
+    private record Cell(String counterparty, String subject, String status, LocalDate tradingDate, long trades, double notional) {}
+
+    @Test
+    void testCellsRoundTripTheirDimensions() {
+        ExposureCube cube = new ExposureCube();
+        cube.add("Acme", "FX", "LIVE", LocalDate.of(2024, 3, 15), 1, 100);
+        cube.add("Acme", "FX", "LIVE", LocalDate.of(2024, 3, 15), 1, 50);
+        cube.add(null, "IRS", "CANCELLED", null, 1, 0);
+        cube.add("Globex", "FX", "LIVE", LocalDate.of(1969, 12, 31), 1, 10);
+
+        assertThat(cells(cube)).containsExactlyInAnyOrder(
+                new Cell("Acme", "FX", "LIVE", LocalDate.of(2024, 3, 15), 2, 150),
+                new Cell(null, "IRS", "CANCELLED", null, 1, 0),
+                new Cell("Globex", "FX", "LIVE", LocalDate.of(1969, 12, 31), 1, 10));
+    }
+
+    @Test
+    void testMovingATradeEmptiesItsOldCell() {
+        ExposureCube cube = new ExposureCube();
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        cube.add("Acme", "FX", "LIVE", day, 1, 100);
+
+        // Cancel: out of LIVE, into CANCELLED
+        cube.add("Acme", "FX", "LIVE", day, -1, -100);
+        cube.add("Acme", "FX", "CANCELLED", day, 1, 100);
+
+        assertThat(cells(cube)).containsExactly(new Cell("Acme", "FX", "CANCELLED", day, 1, 100));
+        assertThat(cube.cellCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testConcurrentAddsAcrossGrowthAreNotLost() throws InterruptedException {
+        ExposureCube cube = new ExposureCube();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    cube.add("CP" + (i % 50), "FX", "LIVE", start.plusDays(i % 100), 1, 1);
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        List<Cell> cells = cells(cube);
+        assertThat(cells).hasSize(100); // i % 50 and i % 100 pair up into 100 distinct cells
+        assertThat(cells.stream().mapToLong(Cell::trades).sum()).isEqualTo(160_000);
+        assertThat(cells.stream().mapToDouble(Cell::notional).sum()).isEqualTo(160_000);
+    }
+
+    @Test
+    void testThousandsOfSubjectsFitTheKey() {
+        ExposureCube cube = new ExposureCube();
+        LocalDate day = LocalDate.of(2149, 6, 1);
+        for (int i = 0; i < 10_000; i++) {
+            cube.add("Acme", "SUBJ_" + i, "LIVE", day, 1, i);
+        }
+
+        assertThat(cells(cube)).hasSize(10_000)
+                .contains(new Cell("Acme", "SUBJ_9999", "LIVE", day, 1, 9999));
+    }
+
+    @Test
+    void testFullDimensionFailsBeforeAnyCellChanges() {
+        ExposureCube cube = new ExposureCube();
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        int subjects = (1 << 19) - 1;
+        for (int i = 0; i < subjects; i++) {
+            cube.key("Acme", "SUBJ_" + i, "LIVE", day);
+        }
+        cube.add("Acme", "SUBJ_0", "LIVE", day, 1, 100);
+
+        assertThatThrownBy(() -> cube.key("Acme", "ONE_TOO_MANY", "LIVE", day))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> cube.key("Acme", "SUBJ_0", "LIVE", LocalDate.of(2150, 1, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(cells(cube)).containsExactly(new Cell("Acme", "SUBJ_0", "LIVE", day, 1, 100));
+    }
+
+    private static List<Cell> cells(ExposureCube cube) {
+        List<Cell> cells = new ArrayList<>();
+        cube.forEach((counterparty, subject, status, tradingDate, trades, notional) ->
+                cells.add(new Cell(counterparty, subject, status, tradingDate, trades, notional)));
+        return cells;
+    }
+}
@@ -0,0 +1,36 @@
+package com.trading.app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void testAddedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("client-" + i + ":book");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("client-" + i + ":book")).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("key-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) falsePositives++;
+        }
+        // 1% target; allow some slack for the hash, never anywhere near "always true"
+        assertThat(falsePositives).isLessThan(2_000);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+}
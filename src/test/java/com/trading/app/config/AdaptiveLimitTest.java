@@ -0,0 +1,60 @@
+package com.trading.app.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimitTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void testPermitsStopAtTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 1.5, 0.2, 600);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(0);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testSteadyLatencyUnderFullUseGrowsToMax() {
+        AdaptiveLimit limit = new AdaptiveLimit(4, 1, 20, 1.5, 0.2, 600);
+        for (int i = 0; i < 200; i++) {
+            sampleAtFullUse(limit, 10 * MS);
+        }
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void testRisingLatencyShrinksTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 1, 20, 1.5, 0.2, 600);
+        for (int i = 0; i < 100; i++) {
+            sampleAtFullUse(limit, 10 * MS);
+        }
+        for (int i = 0; i < 50; i++) {
+            sampleAtFullUse(limit, 60 * MS); // Six times the usual round trip: queueing downstream
+        }
+        assertThat(limit.getLimit()).isLessThan(10);
+    }
+
+    @Test
+    void testLittleUseLeavesTheLimitAlone() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 20, 1.5, 0.2, 600);
+        for (int i = 0; i < 100; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(i % 2 == 0 ? 10 * MS : 100 * MS);
+        }
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    // One request completes while every permit is in use
+    private static void sampleAtFullUse(AdaptiveLimit limit, long rttNanos) {
+        int taken = 0;
+        while (limit.tryAcquire()) taken++;
+        limit.release(rttNanos);
+        for (int i = 1; i < taken; i++) limit.release(0);
+    }
+}
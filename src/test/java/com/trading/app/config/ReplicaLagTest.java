@@ -0,0 +1,50 @@
+package com.trading.app.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaLagTest {
+
+    @Test
+    void testCaughtUpReplicaLagsOnlyByTheCheckItself() {
+        ReplicaLag lag = new ReplicaLag(5_000);
+        lag.primaryAt(1_000, 40);
+        lag.primaryAt(2_000, 50);
+
+        assertThat(lag.lagMillis(2_003, 50)).isEqualTo(3);
+        assertThat(lag.lagMillis(2_003, 60)).isEqualTo(3); // Replica read after a newer commit
+    }
+
+    @Test
+    void testBehindReplicaLagsByTheNewestSampleItHasApplied() {
+        ReplicaLag lag = new ReplicaLag(5_000);
+        lag.primaryAt(1_000, 40);
+        lag.primaryAt(2_000, 50);
+        lag.primaryAt(3_000, 60);
+
+        assertThat(lag.lagMillis(3_000, 55)).isEqualTo(1_000);
+        assertThat(lag.lagMillis(3_000, 40)).isEqualTo(2_000);
+        assertThat(lag.lagMillis(3_000, 39)).isEqualTo(ReplicaLag.UNKNOWN);
+    }
+
+    @Test
+    void testStalledReplicaKeepsAValuePastTheWindow() {
+        ReplicaLag lag = new ReplicaLag(5_000);
+        for (long t = 0; t <= 20_000; t += 1_000) {
+            lag.primaryAt(t, 10 + t); // Replica stopped applying at seq 1_010
+            if (t <= 1_000) lag.lagMillis(t, 1_010);
+        }
+
+        assertThat(lag.lagMillis(20_000, 1_010)).isEqualTo(19_000);
+        assertThat(lag.lagMillis(21_000, 20_010)).isEqualTo(1_000); // Caught up again
+    }
+
+    @Test
+    void testReplicaNeverSeenCaughtUpIsUnknown() {
+        ReplicaLag lag = new ReplicaLag(5_000);
+        lag.primaryAt(1_000, 40);
+
+        assertThat(lag.lagMillis(1_000, 39)).isEqualTo(ReplicaLag.UNKNOWN);
+    }
+}
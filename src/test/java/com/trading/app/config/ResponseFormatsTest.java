@@ -0,0 +1,52 @@
+package com.trading.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseFormatsTest {
+
+    private final ResponseFormats formats = new ResponseFormats(new ObjectMapper(),
+            new MappingJackson2CborHttpMessageConverter(new CBORMapper()),
+            new MappingJackson2SmileHttpMessageConverter(new SmileMapper()),
+            new ContentNegotiationManager());
+
+    @Test
+    void testNoAcceptHeaderGetsJson() throws Exception {
+        assertThat(negotiate(null).name()).isEqualTo("json");
+        assertThat(negotiate("*/*").name()).isEqualTo("json");
+    }
+
+    @Test
+    void testBinaryFormatsByAccept() throws Exception {
+        assertThat(negotiate("application/cbor").name()).isEqualTo("cbor");
+        assertThat(negotiate("application/x-jackson-smile").name()).isEqualTo("smile");
+    }
+
+    @Test
+    void testClientPreferenceWins() throws Exception {
+        assertThat(negotiate("application/json;q=0.5, application/x-jackson-smile").name()).isEqualTo("smile");
+        assertThat(negotiate("text/html, application/cbor;q=0.9, */*;q=0.1").name()).isEqualTo("cbor");
+    }
+
+    @Test
+    void testUnsupportedAcceptIsRejected() {
+        assertThatThrownBy(() -> negotiate("text/csv")).isInstanceOf(HttpMediaTypeNotAcceptableException.class);
+    }
+
+    private ResponseFormats.Format negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/trades");
+        if (accept != null) request.addHeader("Accept", accept);
+        return formats.negotiate(new ServletWebRequest(request));
+    }
+}
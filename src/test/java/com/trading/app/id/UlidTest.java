@@ -0,0 +1,50 @@
+package com.trading.app.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UlidTest {
+
+    @Test
+    void testIdsAreStrictlyIncreasingWithinOneMillisecond() {
+        Ulid ulid = new Ulid();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(ulid.next());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+        assertThat(ids).allSatisfy(id -> assertThat(id).hasSize(Ulid.LENGTH).matches("[0-9A-HJKMNP-TV-Z]+"));
+    }
+
+    @Test
+    void testTimestampRoundTrips() {
+        long before = System.currentTimeMillis();
+        String id = new Ulid().next();
+        long after = System.currentTimeMillis();
+
+        assertThat(Ulid.timestampOf(id)).hasValueSatisfying(millis -> assertThat(millis).isBetween(before, after));
+        assertThat(Ulid.timestampOf(id.toLowerCase())).isEqualTo(Ulid.timestampOf(id));
+    }
+
+    @Test
+    void testOtherFormatsAreNotTakenForUlids() {
+        assertThat(Ulid.timestampOf("IRS:UI:35fa71d5:AMEND:09c0")).isEmpty();
+        assertThat(Ulid.timestampOf("8ZZZZZZZZZZZZZZZZZZZZZZZZZ")).isEmpty(); // overflows 128 bits
+        assertThat(Ulid.timestampOf("01ARZ3NDEKTSV4RRFFQ69G5FAU")).isEmpty(); // U is not Crockford base32
+        assertThat(Ulid.timestampOf("01ARZ3NDEKTSV4RRFFQ69G5FAV")).hasValue(1469922850259L);
+    }
+
+    @Test
+    void testLegacyIdsYieldTheirTradeRef() {
+        assertThat(LegacyIdGenerator.tradeRefOf("IRS:UI:35fa71d5:AMEND:09c0")).hasValue("IRS:UI:35fa71d5");
+        assertThat(LegacyIdGenerator.tradeRefOf("IRS:UI:35fa71d5")).hasValue("IRS:UI:35fa71d5");
+        assertThat(LegacyIdGenerator.tradeRefOf("01ARZ3NDEKTSV4RRFFQ69G5FAV")).isEmpty();
+    }
+}
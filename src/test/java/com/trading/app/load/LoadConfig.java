@@ -0,0 +1,54 @@
+package com.trading.app.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load harness settings, read from -Dload.* system properties.
+ *
+ * @param writeRate      intended write requests per second (open loop, independent of response times)
+ * @param mix            relative weights of BOOK/AMEND/CANCEL/VERIFY in the write stream
+ * @param pollers        concurrent dashboard pollers (closed loop, one request at a time each)
+ * @param exporters      concurrent CSV export clients (closed loop)
+ * @param maxInFlight    outstanding write requests before new ones are counted as dropped
+ */
+record LoadConfig(int writeRate,
+                  Duration warmup,
+                  Duration duration,
+                  Map<String, Integer> mix,
+                  int seedTrades,
+                  int pollers,
+                  Duration pollInterval,
+                  boolean conditionalPolls,
+                  int exporters,
+                  Duration exportInterval,
+                  int maxInFlight) {
+
+    static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Integer.getInteger("load.rate", 200),
+                Duration.ofSeconds(Integer.getInteger("load.warmup", 10)),
+                Duration.ofSeconds(Integer.getInteger("load.duration", 60)),
+                parseMix(System.getProperty("load.mix", "book=40,amend=30,cancel=10,verify=20")),
+                Integer.getInteger("load.seedTrades", 1000),
+                Integer.getInteger("load.pollers", 2),
+                Duration.ofMillis(Integer.getInteger("load.pollIntervalMs", 250)),
+                Boolean.parseBoolean(System.getProperty("load.conditionalPolls", "true")),
+                Integer.getInteger("load.exporters", 1),
+                Duration.ofMillis(Integer.getInteger("load.exportIntervalMs", 5000)),
+                Integer.getInteger("load.maxInFlight", 1000));
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Invalid load.mix entry: " + part);
+            String op = kv[0].trim().toLowerCase();
+            if (!LoadGenerator.WRITE_OPS.contains(op)) throw new IllegalArgumentException("Unknown load.mix op: " + op);
+            mix.put(op, Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
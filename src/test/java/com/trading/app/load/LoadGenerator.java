@@ -0,0 +1,259 @@
+package com.trading.app.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives mixed traffic through the HTTP API.
+ *
+ * - Writes are open loop: request i is due at start + i/rate and its latency is measured from that
+ *   due time, so a stalled server shows up as queueing delay instead of silently lowering the rate.
+ * - Dashboard pollers and the exporter are closed loop, like real screens.
+ * Only requests due after the warm-up are recorded.
+ */
+class LoadGenerator {
+
+    static final Set<String> WRITE_OPS = Set.of("book", "amend", "cancel", "verify");
+
+    private static final String[] SUBJECTS = {"VANILLA_SWAPTION", "IRS", "FX_FORWARD", "EQUITY_OPTION", "CDS", "BOND"};
+    private static final String[] SOURCES = {"LOAD_UI", "LOAD_MUREX", "LOAD_CALYPSO"};
+
+    private final URI baseUri;
+    private final String token;
+    private final LoadConfig config;
+    private final LoadReport report = new LoadReport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Event ids the write stream can amend/cancel/verify; seeded up front, refreshed from the dashboard
+    private final List<String> knownEventIds = Collections.synchronizedList(new ArrayList<>());
+    private final String[] opTable;
+
+    private volatile long measureStart;
+    private volatile long end;
+
+    LoadGenerator(URI baseUri, String token, LoadConfig config) {
+        this.baseUri = baseUri;
+        this.token = token;
+        this.config = config;
+
+        List<String> ops = new ArrayList<>();
+        config.mix().forEach((op, weight) -> ops.addAll(Collections.nCopies(weight, op)));
+        if (ops.isEmpty()) throw new IllegalArgumentException("load.mix has no positive weights");
+        this.opTable = ops.toArray(String[]::new);
+    }
+
+    LoadReport run() throws Exception {
+        seed();
+
+        long start = System.nanoTime();
+        measureStart = start + config.warmup().toNanos();
+        end = measureStart + config.duration().toNanos();
+
+        ExecutorService readers = Executors.newFixedThreadPool(config.pollers() + config.exporters());
+        for (int i = 0; i < config.pollers(); i++) {
+            int poller = i;
+            readers.submit(() -> poll(poller));
+        }
+        for (int i = 0; i < config.exporters(); i++) {
+            readers.submit(this::export);
+        }
+
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        dispatchWrites(start, inFlight);
+
+        // Let outstanding writes finish before closing the window
+        inFlight.tryAcquire(config.maxInFlight(), 30, TimeUnit.SECONDS);
+        readers.shutdown();
+        readers.awaitTermination(60, TimeUnit.SECONDS);
+        report.window(measureStart, end);
+        return report;
+    }
+
+    // --- Writes (open loop) ---
+
+    private void dispatchWrites(long start, Semaphore inFlight) {
+        long intervalNanos = 1_000_000_000L / Math.max(config.writeRate(), 1);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            long intended = due;
+            boolean measured = intended >= measureStart;
+            if (!inFlight.tryAcquire()) {
+                if (measured) report.recordDropped();
+                continue;
+            }
+
+            String eventId = randomKnownEventId(random);
+            String op = eventId == null ? "book" : opTable[random.nextInt(opTable.length)];
+            client.sendAsync(writeRequest(op, eventId, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (!measured) return;
+                        long latency = System.nanoTime() - intended;
+                        if (error != null) report.recordFailure(op, latency, error);
+                        else report.record(op, latency, response.statusCode());
+                    });
+        }
+    }
+
+    private String randomKnownEventId(ThreadLocalRandom random) {
+        synchronized (knownEventIds) {
+            return knownEventIds.isEmpty() ? null : knownEventIds.get(random.nextInt(knownEventIds.size()));
+        }
+    }
+
+    private HttpRequest writeRequest(String op, String eventId, ThreadLocalRandom random) {
+        return switch (op) {
+            case "amend" -> post("/api/trades", submission("AMEND", eventId, random));
+            case "cancel" -> post("/api/trades/" + eventId + "/cancel", "");
+            case "verify" -> post("/api/trades/" + eventId + "/verify", "");
+            default -> post("/api/trades", submission("BOOK", null, random));
+        };
+    }
+
+    private String submission(String mode, String originalId, ThreadLocalRandom random) {
+        return "{\"mode\":\"" + mode + "\""
+                + (originalId != null ? ",\"originalId\":\"" + originalId + "\"" : "")
+                + ",\"subject\":\"" + SUBJECTS[random.nextInt(SUBJECTS.length)] + "\""
+                + ",\"source\":\"" + SOURCES[random.nextInt(SOURCES.length)] + "\""
+                + ",\"counterparty\":\"CPTY_" + String.format("%04d", random.nextInt(5000)) + "\""
+                + ",\"notional\":" + 1_000L * (1 + random.nextInt(50_000)) + "}";
+    }
+
+    // --- Reads (closed loop) ---
+
+    private void poll(int poller) {
+        String etag = null;
+        int i = 0;
+        while (System.nanoTime() < end) {
+            // Every fifth poll types into the search box instead of paging the blotter
+            boolean search = (i++ % 5) == 4;
+            String endpoint = search ? "search" : "dashboard";
+            String path = search
+                    ? "/api/trades?page=0&size=100&search=" + URLEncoder.encode("CPTY_00" + (i % 10), StandardCharsets.UTF_8)
+                    : "/api/trades?page=0&size=100";
+
+            HttpRequest.Builder request = get(path);
+            if (!search && config.conditionalPolls() && etag != null) request.header("If-None-Match", etag);
+
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                if (sent >= measureStart) report.record(endpoint, System.nanoTime() - sent, response.statusCode());
+                if (response.statusCode() == 200) {
+                    if (!search) etag = response.headers().firstValue("ETag").orElse(null);
+                    if (poller == 0) harvest(response.body());
+                }
+            } catch (IOException e) {
+                if (sent >= measureStart) report.recordFailure(endpoint, System.nanoTime() - sent, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            sleep(config.pollInterval());
+        }
+    }
+
+    private void export() {
+        while (System.nanoTime() < end) {
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<InputStream> response = client.send(get("/api/trades/export")
+                        .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    body.transferTo(java.io.OutputStream.nullOutputStream());
+                }
+                if (sent >= measureStart) report.record("export", System.nanoTime() - sent, response.statusCode());
+            } catch (IOException e) {
+                if (sent >= measureStart) report.recordFailure("export", System.nanoTime() - sent, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            sleep(config.exportInterval());
+        }
+    }
+
+    // --- Setup ---
+
+    // Book the seed trades through the batch endpoint, which returns their event ids
+    private void seed() throws IOException, InterruptedException {
+        if (config.seedTrades() <= 0) return;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < config.seedTrades(); i++) {
+            ndjson.append(submission("BOOK", null, random)).append('\n');
+        }
+
+        HttpResponse<byte[]> response = client.send(request("/api/trades/batch")
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode());
+        }
+        for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+            if (item.hasNonNull("eventId")) knownEventIds.add(item.get("eventId").asText());
+        }
+    }
+
+    private void harvest(byte[] dashboard) throws IOException {
+        for (JsonNode trade : objectMapper.readTree(dashboard).path("data")) {
+            JsonNode eventId = trade.path("latestEvent").path("eventId");
+            if (eventId.isTextual()) knownEventIds.add(eventId.asText());
+        }
+        // Bound the pool; recent ids are the interesting ones
+        synchronized (knownEventIds) {
+            int excess = knownEventIds.size() - 10_000;
+            if (excess > 0) knownEventIds.subList(0, excess).clear();
+        }
+    }
+
+    // --- HTTP helpers ---
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofMinutes(2))
+                .header("X-Service-Token", token);
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
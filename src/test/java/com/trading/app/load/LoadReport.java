@@ -0,0 +1,129 @@
+package com.trading.app.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint HDR latency histograms (microseconds) plus status/error counts, written as JSON.
+ * Each endpoint also carries its compressed histogram (base64) so runs can be merged or re-plotted.
+ */
+class LoadReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long measureStartNanos;
+    private volatile long measureEndNanos;
+
+    static final class Endpoint {
+        final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        final Map<String, AtomicLong> statuses = new ConcurrentHashMap<>();
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    void record(String endpoint, long latencyNanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        stats.statuses.computeIfAbsent(String.valueOf(status), k -> new AtomicLong()).incrementAndGet();
+        // The app answers failures with a redirect to "/", so anything but 2xx/304 counts as an error
+        if (status >= 300 && status != 304) stats.errors.incrementAndGet();
+    }
+
+    void recordFailure(String endpoint, long latencyNanos, Throwable error) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        stats.statuses.computeIfAbsent(error.getClass().getSimpleName(), k -> new AtomicLong()).incrementAndGet();
+        stats.errors.incrementAndGet();
+    }
+
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    void window(long startNanos, long endNanos) {
+        this.measureStartNanos = startNanos;
+        this.measureEndNanos = endNanos;
+    }
+
+    Path write(Path dir, LoadConfig config) throws IOException {
+        double seconds = (measureEndNanos - measureStartNanos) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now());
+        report.put("config", config);
+        report.put("measuredSeconds", seconds);
+        report.put("droppedWrites", dropped.get());
+
+        Map<String, Object> byEndpoint = new TreeMap<>();
+        endpoints.forEach((name, stats) -> byEndpoint.put(name, summary(stats, seconds)));
+        report.put("endpoints", byEndpoint);
+
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("load-report-" + System.currentTimeMillis() + ".json");
+        mapper.writeValue(file.toFile(), report);
+        return file;
+    }
+
+    String table() {
+        StringBuilder out = new StringBuilder(String.format("%-10s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        new TreeMap<>(endpoints).forEach((name, stats) -> {
+            Histogram h = stats.latency;
+            out.append(String.format("%-10s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, h.getTotalCount(),
+                    stats.errors.get(), ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue())));
+        });
+        out.append("dropped writes: ").append(dropped.get()).append('\n');
+        return out.toString();
+    }
+
+    private Map<String, Object> summary(Endpoint stats, double seconds) {
+        Histogram h = stats.latency;
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", ms(h.getMean()));
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            latency.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)), ms(h.getValueAtPercentile(p)));
+        }
+        latency.put("max", ms(h.getMaxValue()));
+
+        Map<String, Long> statuses = new TreeMap<>();
+        stats.statuses.forEach((k, v) -> statuses.put(k, v.get()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", h.getTotalCount());
+        summary.put("errors", stats.errors.get());
+        summary.put("throughputPerSecond", seconds > 0 ? h.getTotalCount() / seconds : 0);
+        summary.put("latencyMs", latency);
+        summary.put("statusCodes", statuses);
+        summary.put("hdrHistogram", encode(h));
+        return summary;
+    }
+
+    private static double ms(double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static String encode(Histogram h) {
+        ByteBuffer buffer = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+        int length = h.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+}
@@ -0,0 +1,75 @@
+package com.trading.app.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * End-to-end load run against the full Spring stack and a real Postgres.
+ * Not part of the default test run:
+ *   mvn test -Dtest=TradeLoadHarness -Dload.rate=200 -Dload.duration=60
+ *
+ * Uses a Testcontainers Postgres unless -Dload.jdbcUrl (with load.username/load.password) points
+ * at an existing database. Other knobs are listed in {@link LoadConfig}. The JSON report is written
+ * to target/load-report-<millis>.json.
+ *
+ * Spring properties can be overridden the same way, e.g. comparing execution modes:
+ *   mvn test -Dtest=TradeLoadHarness -Dspring.threads.virtual.enabled=true -Dload.pollers=64 -Dload.exporters=12
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.service.token=" + TradeLoadHarness.TOKEN,
+        "app.cors.allowed-origins=http://localhost"
+})
+class TradeLoadHarness {
+
+    static final String TOKEN = "load-harness";
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        String jdbcUrl = System.getProperty("load.jdbcUrl");
+        if (jdbcUrl != null) {
+            registry.add("spring.datasource.url", () -> jdbcUrl);
+            registry.add("spring.datasource.username", () -> System.getProperty("load.username", "admin"));
+            registry.add("spring.datasource.password", () -> System.getProperty("load.password", ""));
+            return;
+        }
+
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                .withDatabaseName("load_trading_db")
+                .withUsername("load")
+                .withPassword("load");
+        postgres.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        if (postgres != null) postgres.stop();
+    }
+
+    @Test
+    void runLoad() throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        System.out.println("Load config: " + config);
+
+        LoadReport report = new LoadGenerator(URI.create("http://localhost:" + port), TOKEN, config).run();
+
+        Path file = report.write(Path.of("target"), config);
+        System.out.println(report.table());
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,70 @@
+package com.trading.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeSearchIndexTest {
+
+    @Test
+    void testSubstringSearchNewestFirst() {
+        TradeSearchIndex index = new TradeSearchIndex();
+        index.upsert("SWAP:UI:0001", "GOLDMAN_SACHS", "SWAP", "LIVE", 1);
+        index.upsert("SWAP:UI:0002", "JP_MORGAN", "SWAP", "LIVE", 2);
+        index.upsert("BOND:UI:0003", "GOLDMAN_SACHS", "BOND", "VERIFIED", 3);
+
+        TradeSearchIndex.Hits hits = index.search("goldman", 0, 10);
+        assertThat(hits.tradeRefs()).containsExactly("BOND:UI:0003", "SWAP:UI:0001");
+        assertThat(hits.total()).isEqualTo(2);
+
+        assertThat(index.search("swap", 0, 10).tradeRefs()).containsExactly("SWAP:UI:0002", "SWAP:UI:0001");
+        assertThat(index.search("nomatch", 0, 10).total()).isZero();
+        assertThat(index.search("go", 0, 10)).isNull(); // Too short for trigrams
+    }
+
+    @Test
+    void testUpsertReplacesTradeAndPaginates() {
+        TradeSearchIndex index = new TradeSearchIndex();
+        for (int i = 0; i < 5000; i++) {
+            index.upsert("EQ:SYS:" + i, "CPTY_" + (i % 10), "EQ", "LIVE", i);
+        }
+        // Cancel every trade: old docs are tombstoned and eventually compacted
+        for (int i = 0; i < 5000; i++) {
+            index.upsert("EQ:SYS:" + i, "CPTY_" + (i % 10), "EQ", "CANCELLED", 10_000 + i);
+        }
+        // Stale replay of an older version is ignored
+        index.upsert("EQ:SYS:42", "CPTY_2", "EQ", "LIVE", 42);
+
+        assertThat(index.size()).isEqualTo(5000);
+        assertThat(index.search("live", 0, 10).total()).isZero();
+
+        TradeSearchIndex.Hits page = index.search("cancelled", 10, 5);
+        assertThat(page.total()).isEqualTo(5000);
+        assertThat(page.tradeRefs()).containsExactly("EQ:SYS:4989", "EQ:SYS:4988", "EQ:SYS:4987", "EQ:SYS:4986", "EQ:SYS:4985");
+
+        // Field boundaries are not matchable
+        assertThat(index.search("eq:sys:1" + "cpty", 0, 10).total()).isZero();
+        assertThat(index.search("cpty_3", 0, 1000).total()).isEqualTo(500);
+    }
+
+    @Test
+    void testNonAsciiCaseFolding() {
+        TradeSearchIndex index = new TradeSearchIndex();
+        index.upsert("01HZX3KQ7V0000000000000001", "MÜLLER_BANK", "SWAP", "LIVE", 1);
+        index.upsert("01HZX3KQ7V0000000000000002", "SOCIÉTÉ_GÉNÉRALE", "BOND", "LIVE", 2);
+        index.upsert("01HZX3KQ7V0000000000000003", "MULLER_AG", "SWAP", "LIVE", 3);
+
+        // Queries fold exactly like the stored text, whatever case they are typed in
+        assertThat(index.search("müller", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000001");
+        assertThat(index.search("MÜLLER", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000001");
+        assertThat(index.search("Société_gén", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000002");
+        assertThat(index.search("muller", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000003");
+
+        // Trade refs come back in their original case, also after compaction re-appends the documents
+        for (int i = 0; i < 2000; i++) {
+            index.upsert("01HZX3KQ7V0000000000000002", "SOCIÉTÉ_GÉNÉRALE", "BOND", "VERIFIED", 10 + i);
+        }
+        assertThat(index.search("ÉNÉRALE", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000002");
+        assertThat(index.search("01hzx3kq7v0000000000000001", 0, 10).tradeRefs()).containsExactly("01HZX3KQ7V0000000000000001");
+    }
+}
@@ -0,0 +1,40 @@
+package com.trading.app.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KWayMergeTest {
+
+    @Test
+    void testMergesSortedSources() {
+        List<List<Integer>> shards = List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10, 11), List.of(5));
+
+        assertThat(KWayMerge.merge(shards, Comparator.<Integer>naturalOrder(), 100))
+                .containsExactly(1, 2, 3, 4, 5, 9, 10, 11);
+        assertThat(KWayMerge.merge(shards, Comparator.<Integer>naturalOrder(), 4)).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void testKeepsEachSourcesOwnOrder() {
+        // A shard's change feed page is in commit order even where event times disagree
+        record Event(String id, int time) {}
+        List<List<Event>> shards = List.of(
+                List.of(new Event("a1", 5), new Event("a2", 3), new Event("a3", 6)),
+                List.of(new Event("b1", 4), new Event("b2", 5)));
+
+        List<Event> merged = KWayMerge.merge(shards, Comparator.comparingInt(Event::time), 10);
+
+        assertThat(merged).extracting(Event::id).containsExactly("b1", "a1", "a2", "b2", "a3");
+    }
+
+    @Test
+    void testTiesGoToTheLowerShard() {
+        List<List<String>> shards = List.of(List.of("x0"), List.of("x1"), List.of("x2"));
+
+        assertThat(KWayMerge.merge(shards, Comparator.comparing(s -> s.charAt(0)), 10)).containsExactly("x0", "x1", "x2");
+    }
+}
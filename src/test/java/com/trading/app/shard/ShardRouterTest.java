@@ -0,0 +1,61 @@
+package com.trading.app.shard;
+
+import com.trading.app.id.Ulid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ShardRouterTest {
+
+    @Test
+    void testPlacementNeverChanges() {
+        // Stored trades were placed by these values; a different answer strands them on the wrong shard
+        assertThat(ShardRouter.shardOf("IRS:UI:35fa71d5", 8)).isEqualTo(6);
+        assertThat(ShardRouter.shardOf("IRS:UI:35fa71d5", 64)).isEqualTo(31);
+        assertThat(ShardRouter.shardOf("01ARZ3NDEKTSV4RRFFQ69G5FAV", 64)).isEqualTo(59);
+        assertThat(ShardRouter.shardOf("key-1", 2)).isEqualTo(1);
+        assertThat(ShardRouter.shardOf("key-1", 3)).isEqualTo(2);
+        assertThat(ShardRouter.shardOf("key-1", 4)).isEqualTo(3);
+        assertThat(ShardRouter.shardOf("anything", 1)).isZero();
+    }
+
+    @Test
+    void testTradesSpreadEvenly() {
+        // ULIDs minted back to back differ only in their last characters
+        Ulid ulid = new Ulid();
+        int shards = 4;
+        int[] counts = new int[shards];
+        for (int i = 0; i < 100_000; i++) {
+            counts[ShardRouter.shardOf(ulid.next(), shards)]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(24_000, 26_000);
+        }
+    }
+
+    @Test
+    void testAddingAShardOnlyMovesTradesOntoIt() {
+        Ulid ulid = new Ulid();
+        List<String> refs = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) refs.add(ulid.next());
+
+        for (int shards = 1; shards < 8; shards++) {
+            int moved = 0;
+            for (String ref : refs) {
+                int before = ShardRouter.shardOf(ref, shards);
+                int after = ShardRouter.shardOf(ref, shards + 1);
+                assertThat(after).isBetween(0, shards);
+                if (after != before) {
+                    assertThat(after).isEqualTo(shards);
+                    moved++;
+                }
+            }
+            // About 1/(n+1) of the trades
+            assertThat((double) moved / refs.size()).isCloseTo(1.0 / (shards + 1), within(0.02));
+        }
+    }
+}